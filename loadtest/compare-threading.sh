@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Compares the platform-thread and virtual-thread execution modes under the same load.
+#
+# Start the application once per mode and run this script against each, with the
+# same target and concurrency:
+#
+#   java -jar app.jar                                      # platform threads
+#   ./loadtest/compare-threading.sh platform
+#
+#   java -Djdk.tracePinnedThreads=short -jar app.jar --spring.profiles.active=virtual
+#   ./loadtest/compare-threading.sh virtual
+#
+# Each run appends one row to loadtest/results.csv:
+#   mode, requests/s, p99 latency, live/peak threads, heap and non-heap used, RSS
+#
+# Requires: hey (https://github.com/rakyll/hey), curl, jq.
+# Environment:
+#   BASE_URL     default http://localhost:8080
+#   TARGET_PATH  endpoint under load, default /api/users/codeforces/tourist (blocking scrape)
+#   JWT          token for /actuator and authenticated endpoints
+#   CONCURRENCY  default 400 (above Tomcat's 200 worker threads)
+#   DURATION     default 60s
+#   APP_PID      optional, to record the process RSS
+set -euo pipefail
+
+MODE=${1:?usage: $0 <label, e.g. platform|virtual>}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+TARGET_PATH=${TARGET_PATH:-/api/users/codeforces/tourist}
+CONCURRENCY=${CONCURRENCY:-400}
+DURATION=${DURATION:-60s}
+RESULTS=$(dirname "$0")/results.csv
+AUTH=(-H "Authorization: Bearer ${JWT:-}")
+
+metric() {
+  # $1 metric name, $2 optional tag filter (e.g. area:heap)
+  local url="$BASE_URL/actuator/metrics/$1"
+  [ -n "${2:-}" ] && url="$url?tag=$2"
+  curl -fsS "${AUTH[@]}" "$url" | jq -r '.measurements[] | select(.statistic == "VALUE") | .value'
+}
+
+echo "Warming up $MODE..."
+hey -z 10s -c 50 "${AUTH[@]}" "$BASE_URL$TARGET_PATH" > /dev/null
+
+echo "Running $DURATION at concurrency $CONCURRENCY against $TARGET_PATH"
+REPORT=$(hey -z "$DURATION" -c "$CONCURRENCY" "${AUTH[@]}" "$BASE_URL$TARGET_PATH")
+RPS=$(echo "$REPORT" | awk '/Requests\/sec/ {print $2}')
+P99=$(echo "$REPORT" | awk '/99%/ {print $3}')
+
+LIVE=$(metric jvm.threads.live)
+PEAK=$(metric jvm.threads.peak)
+HEAP=$(metric jvm.memory.used area:heap)
+NONHEAP=$(metric jvm.memory.used area:nonheap)
+RSS_KB=""
+if [ -n "${APP_PID:-}" ]; then
+  RSS_KB=$(ps -o rss= -p "$APP_PID" | tr -d ' ')
+fi
+
+[ -f "$RESULTS" ] || echo "mode,requests_per_sec,p99_secs,threads_live,threads_peak,heap_bytes,nonheap_bytes,rss_kb" > "$RESULTS"
+echo "$MODE,$RPS,$P99,$LIVE,$PEAK,$HEAP,$NONHEAP,$RSS_KB" >> "$RESULTS"
+echo "$REPORT" | sed -n '/Summary/,/Requests\/sec/p'
+echo "Appended to $RESULTS"
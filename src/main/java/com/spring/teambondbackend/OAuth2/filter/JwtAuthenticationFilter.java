@@ -5,6 +5,8 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -14,18 +16,33 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private final JwtTokenCache jwtTokenCache;
+    private final Timer filterTimer;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    public JwtAuthenticationFilter(JwtTokenCache jwtTokenCache, MeterRegistry meterRegistry) {
+        this.jwtTokenCache = jwtTokenCache;
+        this.filterTimer = Timer.builder("jwt.filter.latency")
+                .description("Time spent resolving the JWT of a request")
+                .register(meterRegistry);
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -36,61 +53,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        logger.info("Starting filter for request URI: {}", request.getRequestURI());
-
-        // Try to get token from Authorization header
-        String token = null;
-        final String header = request.getHeader("Authorization");
-        logger.info("Authorization header: {}", header);
-
-        if (header != null && header.startsWith("Bearer ")) {
-            token = header.substring(7);
-            logger.info("JWT token found in Authorization header.");
-        } else {
-            // If no token in header, try to get it from cookie named "jwtToken"
-            if (request.getCookies() != null) {
-                for (Cookie cookie : request.getCookies()) {
-                    if ("jwtToken".equals(cookie.getName())) {
-                        token = cookie.getValue();
-                        logger.info("JWT token found in cookie.");
-                        break;
-                    }
-                }
-            }
-        }
+        long start = System.nanoTime();
+        String token = extractToken(request);
 
         if (token == null || token.isBlank()) {
-            logger.info("No JWT token found, continuing filter chain.");
+            logger.debug("No JWT token found for {}, continuing filter chain.", request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
-        logger.info("Extracted token: {}", token);
-
         try {
-            Claims claims = JwtUtil.validateToken(token);
-            logger.info("Token validated successfully.");
-
-            String userId = claims.getSubject();
-            String status = (String) claims.get("status"); // expected "paid" or "not paid"
-            logger.info("Extracted userId: {}", userId);
-            logger.info("Extracted status before normalization: {}", status);
-
-            if (status != null) {
-                status = status.trim().toUpperCase().replace(" ", "_"); // normalize to "PAID" or "NOT_PAID"
-            } else {
-                status = "NOT_PAID"; // default fallback if missing
+            // Seen before: skip signature verification and claim parsing
+            JwtTokenCache.VerifiedToken verified = jwtTokenCache.get(token);
+            if (verified == null) {
+                verified = verify(token);
+                jwtTokenCache.put(token, verified);
             }
-            logger.info("Normalized status/authority: {}", status);
 
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userId,
+                    verified.userId(),
                     null,
-                    Collections.singletonList(new SimpleGrantedAuthority(status))
+                    Collections.singletonList(new SimpleGrantedAuthority(verified.authority()))
             );
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            logger.info("Authentication set in SecurityContextHolder.");
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+            // Endpoints returning a CompletableFuture write their result in an ASYNC dispatch,
+            // which skips this filter and reloads the context from the repository
+            securityContextRepository.saveContext(context, request, response);
+            logger.debug("Authenticated user {} with authority {}", verified.userId(), verified.authority());
 
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token is expired: {}", e.getMessage());
@@ -105,8 +97,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.error("Could not set user authentication in security context: {}", e.getMessage(), e);
             SecurityContextHolder.clearContext();
         }
+        filterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        logger.info("Continuing filter chain.");
         filterChain.doFilter(request, response);
     }
+
+    // Authorization header first, then the "jwtToken" cookie
+    private static String extractToken(HttpServletRequest request) {
+        final String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if ("jwtToken".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static JwtTokenCache.VerifiedToken verify(String token) {
+        Claims claims = JwtUtil.validateToken(token);
+        String status = (String) claims.get("status"); // expected "paid" or "not paid"
+        if (status != null) {
+            status = status.trim().toUpperCase().replace(" ", "_"); // normalize to "PAID" or "NOT_PAID"
+        } else {
+            status = "NOT_PAID"; // default fallback if missing
+        }
+        // Tokens without an expiry are verified every time
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : 0L;
+        return new JwtTokenCache.VerifiedToken(claims.getSubject(), status, expiresAt);
+    }
 }
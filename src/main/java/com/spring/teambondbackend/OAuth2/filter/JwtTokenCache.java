@@ -0,0 +1,108 @@
+package com.spring.teambondbackend.OAuth2.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verified JWTs, keyed by the SHA-256 of the token so raw tokens are never kept
+ * on the heap. An entry holds what the filter needs to authenticate the request
+ * and lives until the token's {@code exp}; a repeat request with the same token
+ * skips signature verification and claim parsing.
+ * <p>
+ * The map is bounded by {@code jwt.cache.max-entries}. When it fills up, expired
+ * entries are dropped first and then arbitrary ones until it is back under 90%.
+ * Meters: {@code jwt.cache.requests} tagged {@code result=hit|miss}, and
+ * {@code jwt.cache.size}.
+ */
+@Component
+public class JwtTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    public record VerifiedToken(String userId, String authority, long expiresAtMillis) {
+    }
+
+    private final ConcurrentHashMap<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public JwtTokenCache(MeterRegistry meterRegistry, @Value("${jwt.cache.max-entries:100000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("jwt.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("jwt.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("jwt.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @return the cached verification result, or null if the token was not seen
+     *         yet or has expired since
+     */
+    public VerifiedToken get(String token) {
+        String key = hash(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            hits.increment();
+            return cached;
+        }
+        if (cached != null) {
+            entries.remove(key, cached);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (maxEntries <= 0 || verified.expiresAtMillis() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(hash(token), verified);
+    }
+
+    private void evict() {
+        // One thread cleans up; the others insert anyway and overshoot the bound slightly
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            Iterator<String> keys = entries.keySet().iterator();
+            int target = maxEntries * 9 / 10;
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
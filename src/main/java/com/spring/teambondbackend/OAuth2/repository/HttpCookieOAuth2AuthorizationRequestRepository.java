@@ -0,0 +1,159 @@
+package com.spring.teambondbackend.OAuth2.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the OAuth2 authorization request (state, redirect URI, attributes) in a
+ * short-lived cookie instead of the HTTP session, so the login handshake can
+ * start on one node and finish on another without sticky sessions.
+ * <p>
+ * The cookie holds the request as JSON with an HMAC-SHA256 signature and an
+ * expiry. It is integrity-protected, not encrypted: everything in it is also
+ * visible in the authorization redirect.
+ */
+public class HttpCookieOAuth2AuthorizationRequestRepository
+        implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpCookieOAuth2AuthorizationRequestRepository.class);
+    public static final String COOKIE_NAME = "oauth2_auth_request";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final Duration MAX_AGE = Duration.ofMinutes(3);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec signingKey;
+
+    record StoredRequest(String authorizationUri, String clientId, String redirectUri, Set<String> scopes,
+            String state, Map<String, Object> additionalParameters, Map<String, Object> attributes,
+            String authorizationRequestUri, long expiresAt) {
+    }
+
+    public HttpCookieOAuth2AuthorizationRequestRepository(String secret) {
+        try {
+            // Separate key from the JWT signing key, derived from the same secret
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM));
+            byte[] derived = mac.doFinal("oauth2-authorization-request".getBytes(StandardCharsets.UTF_8));
+            this.signingKey = new SecretKeySpec(derived, MAC_ALGORITHM);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not derive OAuth2 cookie key", e);
+        }
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String value = readCookie(request);
+        if (value == null) {
+            return null;
+        }
+        try {
+            int dot = value.indexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            String payload = value.substring(0, dot);
+            byte[] signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                logger.warn("Rejected OAuth2 authorization request cookie with a bad signature");
+                return null;
+            }
+            StoredRequest stored = objectMapper.readValue(Base64.getUrlDecoder().decode(payload), StoredRequest.class);
+            if (stored.expiresAt() < System.currentTimeMillis()) {
+                return null;
+            }
+            return OAuth2AuthorizationRequest.authorizationCode()
+                    .authorizationUri(stored.authorizationUri())
+                    .clientId(stored.clientId())
+                    .redirectUri(stored.redirectUri())
+                    .scopes(stored.scopes())
+                    .state(stored.state())
+                    .additionalParameters(stored.additionalParameters())
+                    .attributes(stored.attributes())
+                    .authorizationRequestUri(stored.authorizationRequestUri())
+                    .build();
+        } catch (Exception e) {
+            logger.warn("Could not read OAuth2 authorization request cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+            HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            writeCookie(response, "", Duration.ZERO);
+            return;
+        }
+        try {
+            StoredRequest stored = new StoredRequest(authorizationRequest.getAuthorizationUri(),
+                    authorizationRequest.getClientId(), authorizationRequest.getRedirectUri(),
+                    authorizationRequest.getScopes(), authorizationRequest.getState(),
+                    authorizationRequest.getAdditionalParameters(), authorizationRequest.getAttributes(),
+                    authorizationRequest.getAuthorizationRequestUri(),
+                    System.currentTimeMillis() + MAX_AGE.toMillis());
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(stored));
+            String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
+            writeCookie(response, payload + "." + signature, MAX_AGE);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not store OAuth2 authorization request", e);
+        }
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+            HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        if (authorizationRequest != null) {
+            writeCookie(response, "", Duration.ZERO);
+        }
+        return authorizationRequest;
+    }
+
+    private byte[] sign(String payload) throws Exception {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(signingKey);
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    // Lax: the provider's redirect back to /login/oauth2/code is a top-level GET
+    private static void writeCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(true)
+                .path("/")
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -1,6 +1,6 @@
 package com.spring.teambondbackend.OAuth2.service;
 
-import com.spring.teambondbackend.OAuth2.util.EncryptionUtil;
+import com.spring.teambondbackend.OAuth2.util.EncryptionService;
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.repository.UserRepository;
 
@@ -20,8 +20,8 @@ import java.util.Optional;
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
-    @org.springframework.beans.factory.annotation.Value("${JWT_SECRET_KEY}")
-    private String secretKey;
+    @Autowired
+    private EncryptionService encryptionService;
 
     @Autowired
     private UserRepository userRepository;
@@ -56,7 +56,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         }
         System.out.println(user.getGithubAccessToken());
         // Encrypt token before saving
-        String encryptedToken = EncryptionUtil.encrypt(accessToken, secretKey);
+        String encryptedToken = encryptionService.encrypt(accessToken);
         user.setGithubAccessToken(encryptedToken); // <-- Replace direct assignment
         System.out.println("encrypted github access token" + encryptedToken);
         // Save any updates (token, avatar, etc.)
@@ -0,0 +1,95 @@
+package com.spring.teambondbackend.OAuth2.service;
+
+import com.spring.teambondbackend.OAuth2.util.EncryptionService;
+import com.spring.teambondbackend.OAuth2.util.JwtUtil;
+import com.spring.teambondbackend.rabbitmq.producer.RabbitMqProducer;
+import com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest;
+import com.spring.teambondbackend.registration.model.User;
+import com.spring.teambondbackend.registration.repository.UserRepository;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Completes a GitHub login: finds or creates the user, sets the {@code jwtToken}
+ * cookie and queues the framework analysis. Used by {@code /oauth2/success} in
+ * session mode and directly as the success handler in stateless mode, where
+ * there is no session to carry the authentication across a redirect.
+ */
+@Service
+@RequiredArgsConstructor
+public class OAuth2LoginService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OAuth2LoginService.class);
+
+    private final UserRepository userRepository;
+    private final RabbitMqProducer rabbitMqProducer;
+    private final EncryptionService encryptionService;
+
+    @Value("${frontend.url}")
+    private String url;
+
+    /**
+     * @return the frontend URL to redirect the browser to
+     */
+    public String completeLogin(OAuth2User oAuth2User, HttpServletResponse response) {
+        int githubId = oAuth2User.getAttribute("id");
+        String githubUsername = oAuth2User.getAttribute("login");
+        // String email = oAuth2User.getAttribute("email");
+        String avatarUrl = oAuth2User.getAttribute("avatar_url");
+
+        Optional<User> optionalUser = userRepository.findByGithubId(githubId);
+        User user;
+
+        if (optionalUser.isPresent()) {
+            user = optionalUser.get();
+        } else {
+            user = new User();
+            user.setGithubId(githubId);
+            user.setGithubUsername(githubUsername);
+            user.setGithubAvatarUrl(avatarUrl);
+            // user.setEmail(email != null ? email : githubUsername + "@github.com");
+            user.setProfileComplete(false);
+            userRepository.save(user);
+        }
+
+        user.evaluateProfileCompletion();
+
+        if (!user.isProfileComplete()) {
+            // redirect to frontend register form
+            return String.format(url + "/register?oauth=true&username=%s&id=%s", githubUsername, user.getId());
+        }
+
+        // Generate JWT Token using status
+        String jwtToken = JwtUtil.generateToken(
+                user.getId().toString(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getStatus() // keep status
+        );
+
+        Cookie cookie = new Cookie("jwtToken", jwtToken);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true); // only if HTTPS
+        cookie.setPath("/");
+        cookie.setMaxAge(86400);
+        response.addCookie(cookie);
+
+        GithubScoreRequest githubScoreRequest = new GithubScoreRequest();
+        githubScoreRequest.setEmail(user.getEmail());
+        // Decrypt token when needed
+        githubScoreRequest.setAccessToken(encryptionService.decrypt(user.getGithubAccessToken()));
+        githubScoreRequest.setUsername(user.getGithubUsername());
+        logger.info("Queueing framework analysis for {}", user.getGithubUsername());
+        rabbitMqProducer.sendUserToQueue(githubScoreRequest);
+
+        return url + "/dashboard";
+    }
+}
@@ -0,0 +1,116 @@
+package com.spring.teambondbackend.OAuth2.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts secrets stored on users (GitHub access tokens, RSA public keys).
+ * <p>
+ * The AES-256 key is derived from {@code JWT_SECRET_KEY} once, ciphers are reused
+ * per thread and IVs come from one shared {@link SecureRandom}. New values are
+ * written as AES-GCM with a {@code v2:} prefix, which also detects tampering.
+ * Values without the prefix are the legacy AES-CBC format (IV + ciphertext,
+ * Base64) and are still decrypted. {@code encryption.write-format=cbc} keeps
+ * writing the legacy format, e.g. while older nodes are still running.
+ */
+@Component
+public class EncryptionService {
+
+    static final String GCM_PREFIX = "v2:";
+    private static final int CBC_IV_LENGTH = 16;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CBC = ThreadLocal.withInitial(() -> cipher("AES/CBC/PKCS5Padding"));
+    private static final ThreadLocal<Cipher> GCM = ThreadLocal.withInitial(() -> cipher("AES/GCM/NoPadding"));
+
+    private final SecretKeySpec key;
+    private final boolean writeGcm;
+
+    public EncryptionService(@Value("${JWT_SECRET_KEY}") String secret,
+            @Value("${encryption.write-format:gcm}") String writeFormat) {
+        this.key = deriveKey(secret);
+        this.writeGcm = !"cbc".equalsIgnoreCase(writeFormat);
+    }
+
+    public String encrypt(String plaintext) {
+        try {
+            byte[] data = plaintext.getBytes(StandardCharsets.UTF_8);
+            if (!writeGcm) {
+                return encryptCbc(data);
+            }
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = GCM.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            return GCM_PREFIX + Base64.getEncoder().encodeToString(concat(iv, cipher.doFinal(data)));
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
+
+    public String decrypt(String ciphertext) {
+        try {
+            if (ciphertext.startsWith(GCM_PREFIX)) {
+                byte[] combined = Base64.getDecoder().decode(ciphertext.substring(GCM_PREFIX.length()));
+                Cipher cipher = GCM.get();
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, combined, 0, GCM_IV_LENGTH));
+                byte[] decrypted = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+                return new String(decrypted, StandardCharsets.UTF_8);
+            }
+            // Legacy format: first 16 bytes are the CBC IV
+            byte[] combined = Base64.getDecoder().decode(ciphertext);
+            Cipher cipher = CBC.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(combined, 0, CBC_IV_LENGTH));
+            byte[] decrypted = cipher.doFinal(combined, CBC_IV_LENGTH, combined.length - CBC_IV_LENGTH);
+            return new String(decrypted, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
+
+    private String encryptCbc(byte[] data) throws Exception {
+        byte[] iv = new byte[CBC_IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = CBC.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        return Base64.getEncoder().encodeToString(concat(iv, cipher.doFinal(data)));
+    }
+
+    // 256-bit key from the secret, as the legacy format does
+    static SecretKeySpec deriveKey(String secret) {
+        try {
+            byte[] keyBytes = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(keyBytes, "AES");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] concat(byte[] iv, byte[] encrypted) {
+        byte[] combined = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+        return combined;
+    }
+
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("Cipher not available: " + transformation, e);
+        }
+    }
+}
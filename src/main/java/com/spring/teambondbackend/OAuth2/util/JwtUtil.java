@@ -1,6 +1,7 @@
 package com.spring.teambondbackend.OAuth2.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -16,12 +17,15 @@ import java.util.Map;
 public class JwtUtil {
     private static String SECRET_KEY;
     private static SecretKey KEY;
+    // Immutable and thread-safe: built once with the key instead of per validation
+    private static JwtParser PARSER;
     private static final long EXPIRATION_TIME = 24 * 60 * 60 * 1000; // 24 hour
 
     @org.springframework.beans.factory.annotation.Value("${JWT_SECRET_KEY}")
     public void setSecretKey(String secretKey) {
         JwtUtil.SECRET_KEY = secretKey;
         JwtUtil.KEY = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        JwtUtil.PARSER = Jwts.parser().verifyWith(KEY).build();
     }
 
     public static String generateToken(String id, String username, String email, String status) {
@@ -41,11 +45,7 @@ public class JwtUtil {
     }
 
     public static Claims validateToken(String token) {
-        return Jwts.parser()
-                .verifyWith(KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return PARSER.parseSignedClaims(token).getPayload();
     }
 
     public static String getUserIdFromToken(String token) {
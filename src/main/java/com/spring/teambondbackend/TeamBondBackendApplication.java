@@ -3,8 +3,10 @@ package com.spring.teambondbackend;
 import com.spring.teambondbackend.config.LoadEnvConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TeamBondBackendApplication {
 
 	public static void main(String[] args) {
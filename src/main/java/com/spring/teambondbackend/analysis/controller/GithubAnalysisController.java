@@ -1,28 +1,47 @@
 package com.spring.teambondbackend.analysis.controller;
 
 import com.spring.teambondbackend.analysis.dto.DeveloperEvaluation;
-import com.spring.teambondbackend.analysis.service.GithubAnalysisService;
+import com.spring.teambondbackend.analysis.service.GithubAnalysisCoordinator;
+import com.spring.teambondbackend.config.AiRequestRunner;
+import com.spring.teambondbackend.rabbitmq.producer.RabbitMqProducer;
+import com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest;
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.repository.UserRepository;
+import com.spring.teambondbackend.throttling.RateLimited;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.teambondbackend.OAuth2.util.EncryptionService;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/analysis")
 @RequiredArgsConstructor
 public class GithubAnalysisController {
 
-    private final GithubAnalysisService githubAnalysisService;
-    private final com.spring.teambondbackend.recommendation.services.FrameworkAnalysisService frameworkAnalysisService;
+    private final GithubAnalysisCoordinator githubAnalysisCoordinator;
+    private static final Logger logger = LoggerFactory.getLogger(GithubAnalysisController.class);
+    public static final String FRAMEWORK_STATS_STATUS_HEADER = "X-Framework-Stats-Status";
+
+    private final EncryptionService encryptionService;
+    private final RabbitMqProducer rabbitMqProducer;
     private final UserRepository userRepository;
+    private final AiRequestRunner aiRequestRunner;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @RateLimited("github-analysis")
     @GetMapping("/github/{username}")
-    public ResponseEntity<?> analyzeGithubProfile(@PathVariable String username) {
+    public CompletableFuture<ResponseEntity<?>> analyzeGithubProfile(@PathVariable String username) {
+        // Generating an analysis takes seconds; the container thread is released meanwhile
+        return aiRequestRunner.submit(() -> analyze(username));
+    }
+
+    private ResponseEntity<?> analyze(String username) {
         try {
             // First, check if analysis exists in database
             Optional<User> userOpt = userRepository.findByGithubUsername(username);
@@ -38,38 +57,33 @@ public class GithubAnalysisController {
                 return ResponseEntity.ok(cachedEval);
             }
 
-            // If not found in DB, generate new analysis
-            System.out.println("Generating new Gemini analysis for: " + username);
-            DeveloperEvaluation evaluation = githubAnalysisService.analyzeDeveloper(username);
-            
-            // Store in database if user exists
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                String analysisJson = objectMapper.writeValueAsString(evaluation);
-                user.setGeminiAnalysis(analysisJson);
-                userRepository.save(user);
-                System.out.println("Stored Gemini analysis in database for: " + username);
+            // If not found in DB, generate new analysis. Concurrent requests for the same
+            // username share one run; the coordinator stores the result in the database.
+            GithubAnalysisCoordinator.AnalysisResult result = githubAnalysisCoordinator.analyze(username);
+            DeveloperEvaluation evaluation = result.getEvaluation();
 
-                 // Also update Framework Stats for Recommendations
-                 if (user.getGithubAccessToken() != null && !user.getGithubAccessToken().isEmpty()) {
-                     try {
-                         com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest scoreRequest = 
-                             new com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest();
-                         scoreRequest.setUsername(user.getUsername());
-                         scoreRequest.setEmail(user.getEmail());
-                         scoreRequest.setAccessToken(user.getGithubAccessToken());
-                         
-                         // Run asynchronously or directly? Directly for now to ensure it completes.
-                         System.out.println("Triggering Framework Analysis for: " + username);
-                         frameworkAnalysisService.analyseUserFrameworkStats(scoreRequest);
-                         System.out.println("Framework Analysis completed for: " + username);
-                     } catch (Exception e) {
-                         System.err.println("Failed to update framework stats: " + e.getMessage());
-                         // Don't fail the whole request, just log
-                     }
-                 } else {
-                     System.out.println("Skipping Framework Analysis - No Access Token for: " + username);
-                 }
+            // Only the caller that generated the analysis refreshes framework stats. The
+            // GitHub crawl runs on the queue consumer, not on this request thread.
+            if (result.isGenerated() && userOpt.isPresent()) {
+                User user = userOpt.get();
+                if (user.getGithubAccessToken() != null && !user.getGithubAccessToken().isEmpty()) {
+                    try {
+                        GithubScoreRequest scoreRequest = new GithubScoreRequest();
+                        scoreRequest.setUsername(user.getUsername());
+                        scoreRequest.setEmail(user.getEmail());
+                        scoreRequest.setAccessToken(encryptionService.decrypt(user.getGithubAccessToken()));
+                        if (rabbitMqProducer.requestFrameworkAnalysis(scoreRequest)) {
+                            return ResponseEntity.ok()
+                                    .header(FRAMEWORK_STATS_STATUS_HEADER, "refreshing")
+                                    .body(evaluation);
+                        }
+                    } catch (Exception e) {
+                        // Don't fail the whole request, just log
+                        logger.error("Failed to queue framework analysis for {}: {}", username, e.getMessage());
+                    }
+                } else {
+                    logger.info("Skipping Framework Analysis - No Access Token for: {}", username);
+                }
             }
             
             return ResponseEntity.ok(evaluation);
@@ -0,0 +1,231 @@
+package com.spring.teambondbackend.analysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.teambondbackend.analysis.dto.DeveloperEvaluation;
+import com.spring.teambondbackend.registration.model.User;
+import com.spring.teambondbackend.registration.service.UserProfileCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent AI analyses of the same GitHub profile.
+ * <p>
+ * Within a node, callers for the same username share one
+ * {@link CompletableFuture}. Across nodes, the leader takes a short-lived Redis
+ * lock and publishes its result under a result key; followers on other nodes
+ * poll that key instead of starting their own GitHub fetch and Gemini call.
+ * The evaluation is written to the user document exactly once, by the leader.
+ * <p>
+ * The lock TTL is kept shorter than the follower wait and renewed while the leader
+ * works, so a lock orphaned by a dead leader expires while followers still poll,
+ * and the next poll takes it over.
+ */
+@Service
+@RequiredArgsConstructor
+public class GithubAnalysisCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubAnalysisCoordinator.class);
+    private static final String LOCK_PREFIX = "analysis:lock:";
+    private static final String RESULT_PREFIX = "analysis:result:";
+    private static final long POLL_INTERVAL_MS = 500;
+
+    // Only delete the lock if we still own it
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // Only extend the lock if we still own it
+    private static final DefaultRedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private final GithubAnalysisService githubAnalysisService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final UserProfileCache userProfileCache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentHashMap<String, CompletableFuture<AnalysisResult>> inFlight = new ConcurrentHashMap<>();
+    // Locks this node holds while it leads an analysis; renewed by renewHeldLocks
+    private final Set<String> heldLocks = ConcurrentHashMap.newKeySet();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Must stay well below wait-timeout-ms and above renew-interval-ms
+    @Value("${analysis.single-flight.lock-ttl-ms:30000}")
+    private long lockTtlMillis;
+
+    @Value("${analysis.single-flight.wait-timeout-ms:90000}")
+    private long waitTimeoutMillis;
+
+    @Value("${analysis.single-flight.result-ttl-seconds:300}")
+    private long resultTtlSeconds;
+
+    /**
+     * Result of a coalesced analysis. {@code generated} is true only for the
+     * caller that actually ran the analysis, so follow-up work (such as
+     * refreshing framework stats) is triggered once.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class AnalysisResult {
+        private final DeveloperEvaluation evaluation;
+        private final boolean generated;
+
+        AnalysisResult asFollower() {
+            return generated ? new AnalysisResult(evaluation, false) : this;
+        }
+    }
+
+    public AnalysisResult analyze(String githubUsername) throws Exception {
+        String key = githubUsername.toLowerCase(Locale.ROOT);
+
+        CompletableFuture<AnalysisResult> created = new CompletableFuture<>();
+        CompletableFuture<AnalysisResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            logger.info("Joining in-flight analysis for: {}", githubUsername);
+            return awaitLocal(existing).asFollower();
+        }
+
+        try {
+            AnalysisResult result = analyzeAcrossNodes(githubUsername, key);
+            created.complete(result);
+            return result;
+        } catch (Exception e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private AnalysisResult analyzeAcrossNodes(String githubUsername, String key) throws Exception {
+        String lockKey = LOCK_PREFIX + key;
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+
+        while (true) {
+            DeveloperEvaluation published = readPublishedResult(key);
+            if (published != null) {
+                return new AnalysisResult(published, false);
+            }
+
+            Boolean acquired = tryLock(lockKey);
+            if (acquired == null) {
+                // Redis is unavailable: fall back to node-local coalescing only
+                return new AnalysisResult(computeAndStore(githubUsername, key), true);
+            }
+            if (acquired) {
+                heldLocks.add(lockKey);
+                try {
+                    return new AnalysisResult(computeAndStore(githubUsername, key), true);
+                } finally {
+                    heldLocks.remove(lockKey);
+                    releaseLock(lockKey);
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new TimeoutException("Timed out waiting for in-progress analysis of " + githubUsername);
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    private DeveloperEvaluation computeAndStore(String githubUsername, String key) throws Exception {
+        logger.info("Generating new Gemini analysis for: {}", githubUsername);
+        DeveloperEvaluation evaluation = githubAnalysisService.analyzeDeveloper(githubUsername);
+        String analysisJson = objectMapper.writeValueAsString(evaluation);
+
+        // Single field update: does not clobber concurrent profile edits. Returns only the
+        // names, to evict the cached profile that carries the analysis
+        Query query = new Query(Criteria.where("githubUsername").is(githubUsername));
+        query.fields().include("username", "displayName");
+        User updated = mongoTemplate.findAndModify(query, new Update().set("geminiAnalysis", analysisJson), User.class);
+        if (updated != null) {
+            userProfileCache.evict(updated);
+            logger.info("Stored Gemini analysis in database for: {}", githubUsername);
+        }
+
+        try {
+            stringRedisTemplate.opsForValue().set(RESULT_PREFIX + key, analysisJson,
+                    Duration.ofSeconds(resultTtlSeconds));
+        } catch (Exception e) {
+            logger.warn("Could not publish analysis result for {}: {}", githubUsername, e.getMessage());
+        }
+        return evaluation;
+    }
+
+    private DeveloperEvaluation readPublishedResult(String key) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(RESULT_PREFIX + key);
+            return json != null ? objectMapper.readValue(json, DeveloperEvaluation.class) : null;
+        } catch (Exception e) {
+            logger.warn("Could not read published analysis result for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private Boolean tryLock(String lockKey) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, nodeId, Duration.ofMillis(lockTtlMillis)));
+        } catch (Exception e) {
+            logger.warn("Redis lock unavailable for {}: {}", lockKey, e.getMessage());
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.single-flight.lock-renew-interval-ms:10000}")
+    public void renewHeldLocks() {
+        for (String lockKey : heldLocks) {
+            try {
+                stringRedisTemplate.execute(RENEW_LOCK_SCRIPT, Collections.singletonList(lockKey), nodeId,
+                        String.valueOf(lockTtlMillis));
+            } catch (Exception e) {
+                logger.warn("Could not renew analysis lock {}: {}", lockKey, e.getMessage());
+            }
+        }
+    }
+
+    private void releaseLock(String lockKey) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), nodeId);
+        } catch (Exception e) {
+            logger.warn("Could not release analysis lock {}: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private AnalysisResult awaitLocal(CompletableFuture<AnalysisResult> future) throws Exception {
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package com.spring.teambondbackend.analysis.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spring.teambondbackend.analysis.dto.DeveloperEvaluation;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import com.spring.teambondbackend.gemini.service.GeminiGateway;
 
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class GithubAnalysisService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final Logger logger = LoggerFactory.getLogger(GithubAnalysisService.class);
+    private static final String PROFILE_CACHE_PREFIX = "github:profile:";
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> JSON_ARRAY =
+            new ParameterizedTypeReference<>() {};
+
+    @Qualifier("githubRestTemplate")
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeminiGateway geminiGateway;
+    private final RedisTemplate<Object, Object> redisTemplate;
+    @Qualifier("githubFetchExecutor")
+    private final AsyncTaskExecutor githubFetchExecutor;
+
+    // Public GitHub profile data changes slowly; re-analysis within this window reuses it
+    @org.springframework.beans.factory.annotation.Value("${github.profile-cache.ttl-seconds:3600}")
+    private long profileCacheTtlSeconds;
 
     @org.springframework.beans.factory.annotation.Value("${GEMINI_API_KEY}")
     private String geminiApiKey;
@@ -46,13 +72,42 @@ public class GithubAnalysisService {
     }
 
     private Map<String, Object> fetchGithubData(String username) {
+        String cacheKey = PROFILE_CACHE_PREFIX + username.toLowerCase(Locale.ROOT);
+        Map<String, Object> cachedData = readCachedProfile(cacheKey);
+        if (cachedData != null) {
+            return cachedData;
+        }
+
         String userUrl = "https://api.github.com/users/" + username;
         String reposUrl = "https://api.github.com/users/" + username + "/repos?per_page=40&sort=updated";
         String orgsUrl = "https://api.github.com/users/" + username + "/orgs";
 
-        Map<String, Object> userData = restTemplate.getForObject(userUrl, Map.class);
-        List<Map<String, Object>> repos = restTemplate.getForObject(reposUrl, List.class);
-        List<Map<String, Object>> orgs = restTemplate.getForObject(orgsUrl, List.class);
+        // The three calls are independent: total latency is the slowest call, not the sum
+        CompletableFuture<Map<String, Object>> userFuture = CompletableFuture.supplyAsync(
+                () -> get(userUrl, JSON_OBJECT), githubFetchExecutor);
+        CompletableFuture<List<Map<String, Object>>> reposFuture = CompletableFuture.supplyAsync(
+                () -> get(reposUrl, JSON_ARRAY), githubFetchExecutor);
+        CompletableFuture<List<Map<String, Object>>> orgsFuture = CompletableFuture.supplyAsync(
+                () -> get(orgsUrl, JSON_ARRAY), githubFetchExecutor);
+
+        Map<String, Object> userData;
+        List<Map<String, Object>> repos;
+        List<Map<String, Object>> orgs;
+        try {
+            CompletableFuture.allOf(userFuture, reposFuture, orgsFuture).join();
+            userData = userFuture.join();
+            repos = reposFuture.join();
+            orgs = orgsFuture.join();
+        } catch (CompletionException e) {
+            // Cancel whatever is still running and surface the original failure (e.g. 404 user)
+            userFuture.cancel(true);
+            reposFuture.cancel(true);
+            orgsFuture.cancel(true);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
 
         // Aggregate languages
         Map<String, Integer> languages = new HashMap<>();
@@ -80,9 +135,30 @@ public class GithubAnalysisService {
         aggregatedData.put("orgs", orgs);
         aggregatedData.put("languages", languages);
 
+        try {
+            redisTemplate.opsForValue().set(cacheKey, aggregatedData, profileCacheTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("Could not cache GitHub profile for {}: {}", username, e.getMessage());
+        }
         return aggregatedData;
     }
 
+    private <T> T get(String url, ParameterizedTypeReference<T> type) {
+        return restTemplate.exchange(url, HttpMethod.GET, null, type).getBody();
+    }
+
+    private Map<String, Object> readCachedProfile(String cacheKey) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            if (cached != null) {
+                return objectMapper.convertValue(cached, new TypeReference<Map<String, Object>>() {});
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read cached GitHub profile {}: {}", cacheKey, e.getMessage());
+        }
+        return null;
+    }
+
     private String constructPrompt(Map<String, Object> data) {
         Map<String, Object> user = (Map<String, Object>) data.get("user");
         List<Map<String, Object>> orgs = (List<Map<String, Object>>) data.get("orgs");
@@ -145,20 +221,12 @@ public class GithubAnalysisService {
 
     private DeveloperEvaluation callGemini(String prompt) {
         try {
-            if (geminiApiKey == null || geminiApiKey.isEmpty()) {
-                throw new IllegalStateException("GEMINI_API_KEY is missing. Please check .env or system variables.");
+            // Using Google GenAI SDK (guarded by the Gemini circuit breaker)
+            String text = geminiGateway.generateContent(geminiModel, prompt);
+            if (text == null) {
+                throw new IllegalStateException("Empty response from Gemini");
             }
 
-            // Using Google GenAI SDK
-            Client client = new Client.Builder().apiKey(geminiApiKey).build();
-
-            GenerateContentResponse response = client.models.generateContent(
-                    geminiModel,
-                    prompt,
-                    null);
-
-            String text = response.text();
-
             // Clean markdown code blocks if present
             String jsonText = text.replaceAll("```json", "").replaceAll("```", "").trim();
 
@@ -0,0 +1,79 @@
+package com.spring.teambondbackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a long controller call (Gemini, GitHub analysis) on the bounded
+ * {@code aiRequestExecutor} and hands Spring MVC a future, so the Tomcat thread
+ * returns to the pool while the remote call is in flight.
+ * <p>
+ * A call that is still running after {@code executor.ai-request.timeout-ms}
+ * answers 504 and its worker is interrupted; a full executor answers 503 straight
+ * away. The security context of the request is carried over to the worker thread.
+ */
+@Component
+public class AiRequestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiRequestRunner.class);
+
+    private final AsyncTaskExecutor executor;
+    private final long timeoutMillis;
+
+    public AiRequestRunner(@Qualifier("aiRequestExecutor") AsyncTaskExecutor aiRequestExecutor,
+            @Value("${executor.ai-request.timeout-ms:90000}") long timeoutMillis) {
+        this.executor = new DelegatingSecurityContextAsyncTaskExecutor(aiRequestExecutor);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public CompletableFuture<ResponseEntity<?>> submit(Supplier<ResponseEntity<?>> call) {
+        CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        try {
+            Future<?> task = executor.submit(() -> {
+                try {
+                    result.complete(call.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+            // orTimeout only completes the future; interrupt the worker so the slot is freed
+            return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                    .whenComplete((response, failure) -> {
+                        if (failure != null) {
+                            task.cancel(true);
+                        }
+                    })
+                    .exceptionally(AiRequestRunner::toErrorResponse);
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI request executor is full, rejecting request");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many requests in progress, please retry")));
+        }
+    }
+
+    private static ResponseEntity<?> toErrorResponse(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+                : failure;
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", "Request timed out"));
+        }
+        logger.error("AI request failed: {}", cause.getMessage(), cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Request failed"));
+    }
+}
@@ -22,6 +22,8 @@ public class CustomCorsConfiguration implements CorsConfigurationSource {
         config.setAllowedHeaders(List.of("*"));
         config.setAllowCredentials(true);
         config.addExposedHeader("Authorization");
+        config.addExposedHeader("X-Framework-Stats-Status");
+        config.addExposedHeader("Retry-After");
         return config;
     }
 }
@@ -0,0 +1,119 @@
+package com.spring.teambondbackend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for blocking work. With {@code spring.threads.virtual.enabled=true}
+ * (the "virtual" profile) on Java 21+, each one runs tasks on virtual threads
+ * with the same concurrency bound the pool would have had; otherwise they are
+ * bounded platform-thread pools.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    private final boolean virtualThreads;
+
+    @Value("${executor.github-fetch.core-size:8}")
+    private int githubFetchCoreSize;
+
+    @Value("${executor.github-fetch.max-size:16}")
+    private int githubFetchMaxSize;
+
+    @Value("${executor.github-fetch.queue-capacity:200}")
+    private int githubFetchQueueCapacity;
+
+    @Value("${executor.github-crawl.core-size:10}")
+    private int githubCrawlCoreSize;
+
+    @Value("${executor.github-crawl.max-size:50}")
+    private int githubCrawlMaxSize;
+
+    @Value("${executor.github-crawl.queue-capacity:1000}")
+    private int githubCrawlQueueCapacity;
+
+    @Value("${executor.ai-request.core-size:8}")
+    private int aiRequestCoreSize;
+
+    @Value("${executor.ai-request.max-size:32}")
+    private int aiRequestMaxSize;
+
+    @Value("${executor.ai-request.queue-capacity:100}")
+    private int aiRequestQueueCapacity;
+
+    public ExecutorConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            logger.warn("Virtual threads requested but Java {} does not support them; using platform thread pools",
+                    Runtime.version().feature());
+        }
+    }
+
+    // Declaring any Executor bean backs off Boot's default one, so keep it explicitly
+    // (still configured through spring.task.execution.*) for MVC async. @Async stays off:
+    // callers such as the mail endpoint rely on sendEmail reporting failures synchronously
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+            SimpleAsyncTaskExecutorBuilder simpleBuilder) {
+        return virtualThreads ? simpleBuilder.build() : threadPoolBuilder.build();
+    }
+
+    // Bounded pool for outbound GitHub calls; when saturated the caller runs the fetch itself
+    @Bean
+    public AsyncTaskExecutor githubFetchExecutor() {
+        return boundedExecutor("github-fetch-", githubFetchCoreSize, githubFetchMaxSize, githubFetchQueueCapacity,
+                true);
+    }
+
+    // Shared by the framework crawl (repository and commit fetches) instead of a pool per call
+    @Bean
+    public AsyncTaskExecutor githubCrawlExecutor() {
+        return boundedExecutor("github-crawl-", githubCrawlCoreSize, githubCrawlMaxSize, githubCrawlQueueCapacity,
+                true);
+    }
+
+    // Runs the slow AI endpoints off the Tomcat threads; when full the request is rejected,
+    // since running it on the caller would block the container thread again
+    @Bean
+    public AsyncTaskExecutor aiRequestExecutor() {
+        return boundedExecutor("ai-request-", aiRequestCoreSize, aiRequestMaxSize, aiRequestQueueCapacity, false);
+    }
+
+    private AsyncTaskExecutor boundedExecutor(String threadNamePrefix, int coreSize, int maxSize, int queueCapacity,
+            boolean callerRunsWhenFull) {
+        if (virtualThreads) {
+            // No pool to size: the limit only protects the remote API from too many parallel calls.
+            // At the limit the caller waits, or gets a RejectedExecutionException like the pool's AbortPolicy
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxSize);
+            executor.setRejectTasksWhenLimitReached(!callerRunsWhenFull);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(callerRunsWhenFull ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,14 +1,22 @@
 package com.spring.teambondbackend.config;
 
 import com.spring.teambondbackend.OAuth2.filter.JwtAuthenticationFilter;
+import com.spring.teambondbackend.OAuth2.repository.HttpCookieOAuth2AuthorizationRequestRepository;
 import com.spring.teambondbackend.OAuth2.service.CustomOAuth2UserService;
+import com.spring.teambondbackend.OAuth2.service.OAuth2LoginService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,19 +27,24 @@ import org.springframework.security.web.authentication.logout.SecurityContextLog
 public class SecurityConfig {
 
         private final CustomOAuth2UserService customOAuth2UserService;
+        private final OAuth2LoginService oAuth2LoginService;
+
+        // No HTTP sessions: JWT for the API, a signed cookie for the OAuth2 handshake
+        @Value("${security.session.stateless:false}")
+        private boolean stateless;
+
+        @Value("${JWT_SECRET_KEY}")
+        private String secretKey;
 
         @Autowired
-        public SecurityConfig(CustomOAuth2UserService customOAuth2UserService) {
+        public SecurityConfig(CustomOAuth2UserService customOAuth2UserService, OAuth2LoginService oAuth2LoginService) {
                 this.customOAuth2UserService = customOAuth2UserService;
+                this.oAuth2LoginService = oAuth2LoginService;
         }
 
         @Bean
-        public JwtAuthenticationFilter jwtAuthenticationFilter() {
-                return new JwtAuthenticationFilter();
-        }
-
-        @Bean
-        public SecurityFilterChain filterChain(HttpSecurity http, CustomCorsConfiguration corsConfig) throws Exception {
+        public SecurityFilterChain filterChain(HttpSecurity http, CustomCorsConfiguration corsConfig,
+                        JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
                 http
                                 .cors(c -> c.configurationSource(corsConfig))
                                 .csrf(csrf -> csrf.disable())
@@ -63,10 +76,27 @@ public class SecurityConfig {
                                                         response.sendError(HttpServletResponse.SC_FORBIDDEN,
                                                                         "Access Denied");
                                                 }))
-                                .oauth2Login(oauth -> oauth
-                                                .userInfoEndpoint(userInfo -> userInfo
-                                                                .userService(customOAuth2UserService))
-                                                .defaultSuccessUrl("/oauth2/success", true))
+                                .oauth2Login(oauth -> {
+                                        oauth.userInfoEndpoint(userInfo -> userInfo
+                                                        .userService(customOAuth2UserService));
+                                        if (stateless) {
+                                                // Finish the login in the callback request itself: there is
+                                                // no session to carry the authentication to /oauth2/success
+                                                oauth.authorizationEndpoint(endpoint -> endpoint
+                                                                .authorizationRequestRepository(
+                                                                                new HttpCookieOAuth2AuthorizationRequestRepository(
+                                                                                                secretKey)))
+                                                                .authorizedClientRepository(
+                                                                                new DiscardingAuthorizedClientRepository())
+                                                                .successHandler((request, response, authentication) -> response
+                                                                                .sendRedirect(oAuth2LoginService.completeLogin(
+                                                                                                (OAuth2User) authentication
+                                                                                                                .getPrincipal(),
+                                                                                                response)));
+                                        } else {
+                                                oauth.defaultSuccessUrl("/oauth2/success", true);
+                                        }
+                                })
                                 .logout(logout -> logout
                                                 .logoutUrl("/logout")
                                                 .logoutSuccessHandler((request, response, authentication) -> {
@@ -77,15 +107,44 @@ public class SecurityConfig {
                                                 .invalidateHttpSession(true)
                                                 .deleteCookies("jwtToken")
                                                 .permitAll())
-                                .sessionManagement(session -> session
-                                                .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
-                                                .maximumSessions(1)
-                                                .expiredUrl("/login?expired")
-                                                .and()
-                                                .invalidSessionUrl("/login?invalid"))
+                                .sessionManagement(session -> {
+                                        if (stateless) {
+                                                session.sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+                                        } else {
+                                                session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                                                                .maximumSessions(1)
+                                                                .expiredUrl("/login?expired")
+                                                                .and()
+                                                                .invalidSessionUrl("/login?invalid");
+                                        }
+                                })
                                 // Add your JWT filter BEFORE UsernamePasswordAuthenticationFilter
-                                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
                 return http.build();
         }
+
+        /**
+         * The GitHub access token is stored encrypted on the user by
+         * {@link CustomOAuth2UserService}, so the authorized client does not need to be
+         * kept. The default repository would hold it in memory for every user.
+         */
+        private static class DiscardingAuthorizedClientRepository implements OAuth2AuthorizedClientRepository {
+
+                @Override
+                public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+                                Authentication principal, HttpServletRequest request) {
+                        return null;
+                }
+
+                @Override
+                public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal,
+                                HttpServletRequest request, HttpServletResponse response) {
+                }
+
+                @Override
+                public void removeAuthorizedClient(String clientRegistrationId, Authentication principal,
+                                HttpServletRequest request, HttpServletResponse response) {
+                }
+        }
 }
@@ -1,19 +1,68 @@
 package com.spring.teambondbackend.config;
 
+import com.spring.teambondbackend.personalchat.presence.PresenceChannelInterceptor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.SimpleBrokerRegistration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+
     @Value("${frontend.url}")
     private String frontendUrl;
 
+    @Value("${websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Per-session buffer and time budget: a client that cannot keep up within these
+    // limits is disconnected instead of holding outbound threads for everyone else
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // STOMP heart-beat interval offered to clients, in both directions; 0 disables
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    private final AtomicLong droppedSessions = new AtomicLong();
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         //on /chat endpoint connection will be established
@@ -29,8 +78,55 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         //client-side mapping endpoint
-        config.enableSimpleBroker("/api/v1/topic");
+        SimpleBrokerRegistration broker = config.enableSimpleBroker("/api/v1/topic");
+        if (heartbeatMillis > 0) {
+            ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+            heartbeatScheduler.setPoolSize(1);
+            heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+            heartbeatScheduler.initialize();
+            broker.setHeartbeatValue(new long[] {heartbeatMillis, heartbeatMillis})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
         //server-side mapping endpoint
         config.setApplicationDestinationPrefixes("/app");
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(presenceChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMillis)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                    @Override
+                    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus)
+                            throws Exception {
+                        // Spring closes sessions that exceed the send limits with SESSION_NOT_RELIABLE
+                        if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                            droppedSessions.incrementAndGet();
+                        }
+                        super.afterConnectionClosed(session, closeStatus);
+                    }
+                });
+    }
+
+    public long getDroppedSessions() {
+        return droppedSessions.get();
+    }
 }
@@ -0,0 +1,52 @@
+package com.spring.teambondbackend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Exposes the STOMP channel pools and slow-consumer disconnects as meters:
+ * {@code websocket.channel.queue.size} / {@code websocket.channel.active.threads}
+ * per channel, and {@code websocket.sessions.dropped}.
+ */
+@Component
+@RequiredArgsConstructor
+public class WebSocketMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final WebSocketConfig webSocketConfig;
+    // Declared as Executor by AbstractMessageBrokerConfiguration, so injected by that type
+    @Qualifier("clientInboundChannelExecutor")
+    private final Executor clientInboundChannelExecutor;
+    @Qualifier("clientOutboundChannelExecutor")
+    private final Executor clientOutboundChannelExecutor;
+
+    @PostConstruct
+    public void registerMeters() {
+        registerPool("inbound", clientInboundChannelExecutor);
+        registerPool("outbound", clientOutboundChannelExecutor);
+        FunctionCounter.builder("websocket.sessions.dropped", webSocketConfig, WebSocketConfig::getDroppedSessions)
+                .description("Sessions closed for exceeding the send buffer or send time limit")
+                .register(meterRegistry);
+    }
+
+    private void registerPool(String channel, Executor channelExecutor) {
+        if (!(channelExecutor instanceof ThreadPoolTaskExecutor executor)) {
+            return;
+        }
+        Gauge.builder("websocket.channel.queue.size", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Messages waiting for a channel thread")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active.threads", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+}
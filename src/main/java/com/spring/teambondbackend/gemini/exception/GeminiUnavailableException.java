@@ -0,0 +1,11 @@
+package com.spring.teambondbackend.gemini.exception;
+
+/**
+ * Thrown when a Gemini call is rejected locally because the circuit breaker is
+ * open, so callers can switch to their non-AI fallback without waiting.
+ */
+public class GeminiUnavailableException extends RuntimeException {
+    public GeminiUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,160 @@
+package com.spring.teambondbackend.gemini.service;
+
+import com.google.genai.Client;
+import com.google.genai.errors.ApiException;
+import com.google.genai.errors.ServerException;
+import com.google.genai.types.GenerateContentResponse;
+import com.spring.teambondbackend.gemini.exception.GeminiUnavailableException;
+import com.spring.teambondbackend.gemini.util.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single entry point for every outbound Gemini call.
+ * <p>
+ * Calls are guarded by a {@link CircuitBreaker} that tracks error rate and p95
+ * latency. While the breaker is open, {@link #execute(Callable)} fails fast with
+ * {@link GeminiUnavailableException} so callers fall back to their local scoring
+ * instead of waiting for another timeout.
+ */
+@Component
+public class GeminiGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiGateway.class);
+
+    @Value("${GEMINI_API_KEY}")
+    private String geminiApiKey;
+
+    @Value("${gemini.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${gemini.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${gemini.circuit-breaker.failure-rate-threshold:50}")
+    private double failureRateThreshold;
+
+    @Value("${gemini.circuit-breaker.slow-call-p95-threshold-ms:8000}")
+    private long slowCallThresholdMillis;
+
+    @Value("${gemini.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMillis;
+
+    @Value("${gemini.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    private CircuitBreaker circuitBreaker;
+    private volatile Client client;
+
+    @PostConstruct
+    public void init() {
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                slowCallThresholdMillis, openDurationMillis, halfOpenProbes);
+    }
+
+    /**
+     * @return false while the breaker is open, so callers can skip prompt building
+     *         and go straight to their fallback
+     */
+    public boolean isCallPermitted() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Runs a Gemini call through the circuit breaker, recording its latency and
+     * outcome. Only upstream failures count against Gemini (see
+     * {@link #isUpstreamFailure}); other exceptions are passed on without being recorded.
+     *
+     * @throws GeminiUnavailableException if the breaker rejects the call
+     */
+    public <T> T execute(Callable<T> call) throws Exception {
+        CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+        if (permit == null) {
+            throw new GeminiUnavailableException("Gemini circuit breaker is open");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            circuitBreaker.onSuccess(permit, elapsedMillis(start));
+            return result;
+        } catch (Exception e) {
+            if (!isUpstreamFailure(e)) {
+                circuitBreaker.onIgnored(permit);
+                throw e;
+            }
+            circuitBreaker.onError(permit, elapsedMillis(start));
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                logger.warn("Gemini circuit breaker OPEN (failureRate={}%, p95={}ms): {}",
+                        circuitBreaker.getFailureRate(), circuitBreaker.getP95LatencyMillis(), e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a prompt through the Gemini SDK and returns the response text.
+     *
+     * @return the response text, or null if Gemini returned no content
+     */
+    public String generateContent(String model, String prompt) throws Exception {
+        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
+            throw new IllegalStateException("GEMINI_API_KEY is missing. Please check .env or system variables.");
+        }
+        return execute(() -> {
+            GenerateContentResponse response = getClient().models.generateContent(model, prompt, null);
+            return response != null ? response.text() : null;
+        });
+    }
+
+    private Client getClient() {
+        Client current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    current = new Client.Builder().apiKey(geminiApiKey).build();
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Timeouts, I/O errors, 5xx responses and 429 quota exhaustion (from the SDK or a
+     * RestTemplate) say Gemini is unhealthy. Rejected requests, bad prompts and failures
+     * in the caller's own code do not.
+     */
+    static boolean isUpstreamFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof IOException || t instanceof TimeoutException
+                    || t instanceof ServerException || t instanceof HttpServerErrorException
+                    || t instanceof HttpClientErrorException.TooManyRequests) {
+                return true;
+            }
+            // The SDK raises RESOURCE_EXHAUSTED as a ClientException
+            if (t instanceof ApiException apiException && apiException.code() == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,240 @@
+package com.spring.teambondbackend.gemini.util;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker that trips on error rate or p95 latency.
+ * <p>
+ * The last {@code windowSize} outcomes are kept in a ring buffer. Once at least
+ * {@code minimumCalls} outcomes are recorded the breaker opens when either the
+ * failure rate or the 95th percentile latency crosses its threshold. While open,
+ * {@link #acquirePermission()} rejects calls with a single volatile read; after
+ * {@code openDurationMillis} a limited number of half-open probes are let through
+ * and the breaker closes again only if all of them succeed in time.
+ * <p>
+ * Every result is tied to the state its call was admitted in through a {@link Permit}:
+ * a call admitted before the breaker last changed state is stale, and its result is
+ * ignored. A slow call admitted while closed therefore never counts as a half-open
+ * probe. Calls that ended for reasons unrelated to the upstream's health are
+ * reported with {@link #onIgnored(Permit)}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdMillis;
+    private final long openDurationMillis;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // Sliding window (guarded by this)
+    private final long[] latencies;
+    private final boolean[] failures;
+    private int index;
+    private int recorded;
+
+    // Half-open bookkeeping (guarded by this)
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    // Bumped on every state change; permits from older generations are stale
+    private volatile long generation;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+            long slowCallThresholdMillis, long openDurationMillis, int halfOpenProbes) {
+        this(windowSize, minimumCalls, failureRateThreshold, slowCallThresholdMillis, openDurationMillis,
+                halfOpenProbes, System::currentTimeMillis);
+    }
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+            long slowCallThresholdMillis, long openDurationMillis, int halfOpenProbes, LongSupplier clock) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenProbes must be positive");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdMillis = slowCallThresholdMillis;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.latencies = new long[windowSize];
+        this.failures = new boolean[windowSize];
+    }
+
+    /**
+     * A granted call, to be ended with exactly one of {@link #onSuccess(Permit, long)},
+     * {@link #onError(Permit, long)} or {@link #onIgnored(Permit)}.
+     */
+    public static final class Permit {
+        private final long generation;
+        private final boolean probe;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * @return a permit if the call may proceed, otherwise null
+     */
+    public Permit acquirePermission() {
+        long current = generation;
+        if (state == State.CLOSED) {
+            return new Permit(current, false);
+        }
+        // Fast rejection while the open period has not elapsed yet
+        if (state == State.OPEN && clock.getAsLong() - openedAt < openDurationMillis) {
+            return null;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openedAt < openDurationMillis) {
+                    return null;
+                }
+                changeState(State.HALF_OPEN);
+                probesInFlight = 0;
+                probeSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                    return null;
+                }
+                probesInFlight++;
+                return new Permit(generation, true);
+            }
+            return new Permit(generation, false);
+        }
+    }
+
+    /**
+     * Non-consuming check used to skip work (e.g. prompt building) when the call
+     * would be rejected anyway.
+     */
+    public boolean isCallPermitted() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            return clock.getAsLong() - openedAt >= openDurationMillis;
+        }
+        synchronized (this) {
+            return probesInFlight + probeSuccesses < halfOpenProbes;
+        }
+    }
+
+    public synchronized void onSuccess(Permit permit, long latencyMillis) {
+        if (isProbe(permit)) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (latencyMillis >= slowCallThresholdMillis) {
+                transitionToOpen();
+                return;
+            }
+            probeSuccesses++;
+            if (probeSuccesses >= halfOpenProbes) {
+                transitionToClosed();
+            }
+            return;
+        }
+        if (isClosedCall(permit)) {
+            record(latencyMillis, false);
+        }
+    }
+
+    public synchronized void onError(Permit permit, long latencyMillis) {
+        if (isProbe(permit)) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            transitionToOpen();
+            return;
+        }
+        if (isClosedCall(permit)) {
+            record(latencyMillis, true);
+        }
+    }
+
+    /**
+     * Ends a call whose outcome says nothing about the upstream (e.g. a rejected
+     * request). It is not recorded, but frees its half-open probe slot.
+     */
+    public synchronized void onIgnored(Permit permit) {
+        if (isProbe(permit)) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+        }
+    }
+
+    private boolean isProbe(Permit permit) {
+        return permit.generation == generation && permit.probe && state == State.HALF_OPEN;
+    }
+
+    private boolean isClosedCall(Permit permit) {
+        return permit.generation == generation && !permit.probe && state == State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        if (recorded == 0) {
+            return 0.0;
+        }
+        int failed = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (failures[i]) {
+                failed++;
+            }
+        }
+        return failed * 100.0 / recorded;
+    }
+
+    public synchronized long getP95LatencyMillis() {
+        if (recorded == 0) {
+            return 0L;
+        }
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(0.95 * recorded) - 1;
+        return sorted[Math.max(0, rank)];
+    }
+
+    private void record(long latencyMillis, boolean failed) {
+        latencies[index] = latencyMillis;
+        failures[index] = failed;
+        index = (index + 1) % windowSize;
+        if (recorded < windowSize) {
+            recorded++;
+        }
+        if (recorded >= minimumCalls
+                && (getFailureRate() >= failureRateThreshold || getP95LatencyMillis() >= slowCallThresholdMillis)) {
+            transitionToOpen();
+        }
+    }
+
+    private void transitionToOpen() {
+        openedAt = clock.getAsLong();
+        changeState(State.OPEN);
+    }
+
+    private void transitionToClosed() {
+        index = 0;
+        recorded = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        changeState(State.CLOSED);
+    }
+
+    private void changeState(State next) {
+        generation++;
+        state = next;
+    }
+}
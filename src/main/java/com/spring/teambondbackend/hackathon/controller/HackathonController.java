@@ -1,12 +1,14 @@
 package com.spring.teambondbackend.hackathon.controller;
 
 import com.cloudinary.Cloudinary;
+import com.spring.teambondbackend.config.AiRequestRunner;
 import com.spring.teambondbackend.hackathon.dto.HackathonDTO;
 import com.spring.teambondbackend.hackathon.model.Hackathon;
 import com.spring.teambondbackend.hackathon.service.HackathonService;
 import com.spring.teambondbackend.hackathon.service.MailService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spring.teambondbackend.recommendation.utils.ApiResponse;
+import com.spring.teambondbackend.throttling.RateLimited;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -21,6 +23,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/hackathons")
@@ -31,6 +34,7 @@ public class HackathonController {
     private final Cloudinary cloudinary;
     private final ObjectMapper objectMapper;
     private final MailService mailService;
+    private final AiRequestRunner aiRequestRunner;
 
     @PostMapping
     public ResponseEntity<Hackathon> createHackathon(@RequestParam(value = "logo", required = false) MultipartFile logo,
@@ -118,8 +122,13 @@ public class HackathonController {
         return ResponseEntity.ok(this.hackathonService.recommendHackathons(username));
     }
 
+    @RateLimited("gemini")
     @GetMapping("/{id}/recommended-users")
-    public ResponseEntity<?> getRecommendedUsers(@PathVariable String id) {
+    public CompletableFuture<ResponseEntity<?>> getRecommendedUsers(@PathVariable String id) {
+        return aiRequestRunner.submit(() -> recommendUsers(id));
+    }
+
+    private ResponseEntity<?> recommendUsers(String id) {
         try {
             System.out.println("========================================");
             System.out.println("📥 CONTROLLER: Received request for recommended users");
@@ -178,23 +187,24 @@ public class HackathonController {
         }
     }
 
+    @RateLimited("gemini")
     @PostMapping("/generate-details")
-    public ResponseEntity<HackathonDTO> generateHackathonDetails(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> generateHackathonDetails(@RequestBody Map<String, String> payload) {
         String description = payload.get("description");
         if (description == null || description.trim().isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
-        return ResponseEntity.ok(hackathonService.generateHackathonDetails(description));
+        return aiRequestRunner.submit(() -> ResponseEntity.ok(hackathonService.generateHackathonDetails(description)));
     }
 
+    @RateLimited("gemini")
     @PostMapping("/jen-ai")
-    public ResponseEntity<Map<String, String>> chatWithJenAI(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> chatWithJenAI(@RequestBody Map<String, String> payload) {
         String query = payload.get("query");
         if (query == null || query.trim().isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Query is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Query is required")));
         }
 
-        String response = hackathonService.chatWithJenAI(query);
-        return ResponseEntity.ok(Map.of("response", response));
+        return aiRequestRunner.submit(() -> ResponseEntity.ok(Map.of("response", hackathonService.chatWithJenAI(query))));
     }
 }
@@ -2,8 +2,8 @@ package com.spring.teambondbackend.hackathon.service;
 
 import com.cloudinary.Cloudinary;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import com.spring.teambondbackend.gemini.exception.GeminiUnavailableException;
+import com.spring.teambondbackend.gemini.service.GeminiGateway;
 import com.spring.teambondbackend.geolocation.services.GeolocationService;
 import com.spring.teambondbackend.hackathon.dto.HackathonDTO;
 
@@ -15,6 +15,7 @@ import com.spring.teambondbackend.hackathon.repository.HackathonRequestRepositor
 import com.spring.teambondbackend.recommendation.models.UserFrameworkStats;
 import com.spring.teambondbackend.recommendation.services.FrameworkAnalysisService;
 import com.spring.teambondbackend.recommendation.utils.ApiException;
+import com.spring.teambondbackend.registration.dto.PublicUserProfile;
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.service.UserService;
 
@@ -24,6 +25,7 @@ import org.apache.tomcat.util.net.SocketWrapperBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,6 +47,7 @@ public class HackathonService {
     private GeolocationService geolocationService;
     private final UserService userService;
     private final FrameworkAnalysisService frameworkAnalysisService;
+    private final GeminiGateway geminiGateway;
 
     private static Logger logger = LoggerFactory.getLogger("HackathonService.class");
 
@@ -52,6 +55,7 @@ public class HackathonService {
     private ObjectMapper objectMapper;
 
     @Autowired
+    @Qualifier("geminiRestTemplate")
     private RestTemplate restTemplate;
     @Autowired
     private RedisTemplate<Object, Object> redisTemplate;
@@ -214,8 +218,8 @@ public class HackathonService {
         // insufficient
         if (frameworkUsage.isEmpty()) {
             try {
-                User user = userService.getUserByUsername(username);
-                if (user != null && user.getGeminiAnalysis() != null && !user.getGeminiAnalysis().isEmpty()) {
+                PublicUserProfile user = userService.getPublicProfile(username);
+                if (user.getGeminiAnalysis() != null && !user.getGeminiAnalysis().isEmpty()) {
                     com.spring.teambondbackend.analysis.dto.DeveloperEvaluation eval = objectMapper.readValue(
                             user.getGeminiAnalysis(),
                             com.spring.teambondbackend.analysis.dto.DeveloperEvaluation.class);
@@ -568,6 +572,13 @@ public class HackathonService {
 
             System.out.println("✅ Proceeding with " + eligibleUsers.size() + " eligible users");
 
+            // Skip prompt building and the remote call entirely while Gemini is failing
+            if (!geminiGateway.isCallPermitted()) {
+                logger.info("Gemini circuit breaker is {}, using basic recommendations for hackathon {}",
+                        geminiGateway.getState(), hackathonId);
+                return getBasicRecommendations(hackathon, eligibleUsers);
+            }
+
             // Step 3: Build Gemini Prompt with clean, minimal data
             String prompt;
             try {
@@ -1031,15 +1042,19 @@ public class HackathonService {
                     requestBody, headers);
 
             @SuppressWarnings("unchecked")
-            org.springframework.http.ResponseEntity<Map<String, Object>> response = restTemplate.exchange(url,
-                    org.springframework.http.HttpMethod.POST, entity,
-                    new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
-                    });
+            org.springframework.http.ResponseEntity<Map<String, Object>> response = geminiGateway.execute(
+                    () -> restTemplate.exchange(url,
+                            org.springframework.http.HttpMethod.POST, entity,
+                            new org.springframework.core.ParameterizedTypeReference<Map<String, Object>>() {
+                            }));
 
             if (response.getBody() != null) {
                 return objectMapper.writeValueAsString(response.getBody());
             }
 
+            return "[]";
+        } catch (GeminiUnavailableException e) {
+            logger.info("Gemini call skipped: {}", e.getMessage());
             return "[]";
         } catch (Exception e) {
             logger.error("Error calling Gemini API: {}", e.getMessage(), e);
@@ -1166,18 +1181,13 @@ public class HackathonService {
             logger.debug("Calling Gemini AI for user: {}", user.getUsername());
 
             // Call Gemini API
-            Client client = new Client.Builder().apiKey(geminiApiKey).build();
-            GenerateContentResponse response = client.models.generateContent(
-                    geminiModel,
-                    prompt,
-                    null);
+            String text = geminiGateway.generateContent(geminiModel, prompt);
 
-            if (response == null || response.text() == null || response.text().isEmpty()) {
+            if (text == null || text.isEmpty()) {
                 logger.warn("Empty response from Gemini AI for user {}", user.getUsername());
                 return null;
             }
 
-            String text = response.text();
             logger.debug("Gemini raw response for user {}: {}", user.getUsername(),
                     text.substring(0, Math.min(200, text.length())));
 
@@ -1213,6 +1223,9 @@ public class HackathonService {
                     user.getUsername(), result.getMatchScore(), result.getOverallSkillLevel());
 
             return result;
+        } catch (GeminiUnavailableException e) {
+            logger.debug("Gemini unavailable, skipping AI evaluation for user {}", user.getUsername());
+            return null;
         } catch (Exception e) {
             logger.error("Error calling Gemini AI for user {}: {}", user.getUsername(), e.getMessage(), e);
             return null;
@@ -1382,18 +1395,16 @@ public class HackathonService {
 
         try {
             // Using Google Gen AI SDK
-            Client client = new Client.Builder().apiKey(geminiApiKey).build();
-            GenerateContentResponse response = client.models.generateContent(
-                    geminiModel,
-                    prompt,
-                    null);
-
-            if (response != null && response.text() != null) {
-                return response.text();
+            String text = geminiGateway.generateContent(geminiModel, prompt);
+
+            if (text != null) {
+                return text;
             }
 
             return "I didn't understand that. Could you please rephrase?";
 
+        } catch (GeminiUnavailableException e) {
+            return "I'm currently receiving too many requests. Please wait a minute and try again.";
         } catch (Exception e) {
             logger.error("Error calling Jen AI: {}", e.getMessage(), e);
 
@@ -1456,13 +1467,7 @@ public class HackathonService {
                     description);
 
             // 2. Call Gemini
-            Client client = new Client.Builder().apiKey(geminiApiKey).build();
-            GenerateContentResponse response = client.models.generateContent(
-                    geminiModel,
-                    prompt,
-                    null);
-
-            String text = response.text();
+            String text = geminiGateway.generateContent(geminiModel, prompt);
             if (text == null) {
                 throw new RuntimeException("Empty response from AI");
             }
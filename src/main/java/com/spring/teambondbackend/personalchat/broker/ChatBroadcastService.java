@@ -0,0 +1,79 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends chat frames to STOMP subscribers on every application instance.
+ * <p>
+ * Frames always go to the local simple broker first. When a {@link ChatFanout}
+ * is configured ({@code chat.broker.mode=redis}) they are also published to the
+ * other instances, which deliver them to their own subscribers. Each envelope
+ * carries the id of the node that sent it, so a node skips its own frames.
+ */
+@Service
+public class ChatBroadcastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatBroadcastService.class);
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatFanout fanout;
+    private final Timer broadcastTimer;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ChatBroadcastService(SimpMessageSendingOperations messagingTemplate, ObjectMapper objectMapper,
+            Optional<ChatFanout> fanout, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.fanout = fanout.orElse(null);
+        this.broadcastTimer = Timer.builder("chat.broadcast.latency")
+                .description("Time to hand a chat frame to the broker and the cross-node fan-out")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public record Envelope(String origin, String destination, JsonNode payload) {
+    }
+
+    public void broadcast(String destination, Object payload) {
+        long start = System.nanoTime();
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+            if (fanout == null) {
+                return;
+            }
+            try {
+                Envelope envelope = new Envelope(nodeId, destination, objectMapper.valueToTree(payload));
+                fanout.publish(objectMapper.writeValueAsString(envelope));
+            } catch (Exception e) {
+                // Local subscribers already have the frame; remote ones recover from history
+                logger.warn("Failed to fan out broadcast to {}: {}", destination, e.getMessage());
+            }
+        } finally {
+            broadcastTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void onRemoteMessage(String envelopeJson) {
+        try {
+            Envelope envelope = objectMapper.readValue(envelopeJson, Envelope.class);
+            if (nodeId.equals(envelope.origin())) {
+                return;
+            }
+            messagingTemplate.convertAndSend(envelope.destination(), envelope.payload());
+        } catch (Exception e) {
+            logger.warn("Dropping malformed chat broadcast: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis fan-out mode: every instance subscribes to the broadcast channel and
+ * replays messages from other instances into its local simple broker.
+ */
+@Configuration
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "redis")
+public class ChatBrokerConfig {
+
+    @Value("${chat.broker.redis.channel:chat:broadcast}")
+    private String channel;
+
+    @Bean
+    public RedisMessageListenerContainer chatBroadcastListenerContainer(RedisConnectionFactory connectionFactory,
+            ChatBroadcastService chatBroadcastService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> chatBroadcastService
+                .onRemoteMessage(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(channel));
+        return container;
+    }
+}
@@ -0,0 +1,10 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+/**
+ * Cross-node transport for chat broadcasts. Implementations publish an encoded
+ * envelope to every other application instance, which hands it to
+ * {@link ChatBroadcastService#onRemoteMessage(String)}.
+ */
+public interface ChatFanout {
+    void publish(String envelopeJson);
+}
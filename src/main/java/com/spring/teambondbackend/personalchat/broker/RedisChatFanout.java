@@ -0,0 +1,23 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "redis")
+public class RedisChatFanout implements ChatFanout {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${chat.broker.redis.channel:chat:broadcast}")
+    private String channel;
+
+    @Override
+    public void publish(String envelopeJson) {
+        stringRedisTemplate.convertAndSend(channel, envelopeJson);
+    }
+}
@@ -0,0 +1,117 @@
+package com.spring.teambondbackend.personalchat.config;
+
+import com.spring.teambondbackend.personalchat.model.MessageBucket;
+import com.spring.teambondbackend.personalchat.model.PersonalChat;
+import com.spring.teambondbackend.personalchat.service.MessageBucketService;
+import com.spring.teambondbackend.personalchat.service.PersonalChatService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the personal chat indexes, moves any chats that still embed their
+ * messages into buckets and backfills the canonical pair key. All steps are
+ * idempotent.
+ * <p>
+ * Indexes and the bucket migration run while the context is refreshed, before the
+ * web server accepts requests: without the unique indexes concurrent sends can
+ * create duplicate buckets or chats, and reads would miss history not migrated yet.
+ * Startup fails if an index cannot be created. The pair key backfill runs once the
+ * app is up; until it is done, chats without a key are found by member ids and chat
+ * ids are not cached, since adopting a key can move it to another chat.
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonalChatStorageInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonalChatStorageInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageBucketService messageBucketService;
+    private final PersonalChatService personalChatService;
+
+    @PostConstruct
+    public void prepareStorage() {
+        try {
+            createIndexes();
+        } catch (Exception e) {
+            logger.error("Could not create the personal chat indexes: {}", e.getMessage());
+            throw new IllegalStateException("Personal chat indexes are missing", e);
+        }
+        migrateLegacyChats();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfillPairKeys();
+        personalChatService.markPairKeysBackfilled();
+    }
+
+    private void createIndexes() {
+        mongoTemplate.indexOps(MessageBucket.class).ensureIndex(new Index()
+                .on("chatId", Sort.Direction.ASC)
+                .on("bucketNo", Sort.Direction.ASC)
+                .unique()
+                .named("chatId_bucketNo"));
+        // Inbox and chat list lookups by either member
+        mongoTemplate.indexOps(PersonalChat.class).ensureIndex(new Index()
+                .on("member1Id", Sort.Direction.ASC).on("lastMessageAt", Sort.Direction.DESC));
+        mongoTemplate.indexOps(PersonalChat.class).ensureIndex(new Index()
+                .on("member2Id", Sort.Direction.ASC).on("lastMessageAt", Sort.Direction.DESC));
+
+        // Partial, so chats not backfilled yet do not collide on a missing key
+        mongoTemplate.indexOps(PersonalChat.class).ensureIndex(new Index()
+                .on("pairKey", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("pairKey").exists(true)))
+                .named("pairKey_unique"));
+    }
+
+    private void migrateLegacyChats() {
+        Query legacyChats = new Query(Criteria.where("messages").exists(true));
+        legacyChats.fields().include("_id");
+        int migrated = 0;
+        for (Document chat : mongoTemplate.find(legacyChats, Document.class,
+                mongoTemplate.getCollectionName(PersonalChat.class))) {
+            String chatId = chat.get("_id").toString();
+            try {
+                messageBucketService.migrateChat(chatId);
+                migrated++;
+            } catch (Exception e) {
+                logger.error("Failed to migrate personal chat {} into buckets: {}", chatId, e.getMessage());
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} personal chats into message buckets", migrated);
+        }
+    }
+
+    private void backfillPairKeys() {
+        Query missing = new Query(Criteria.where("pairKey").exists(false));
+        missing.fields().include("member1Id", "member2Id");
+        int backfilled = 0;
+        for (PersonalChat chat : mongoTemplate.find(missing, PersonalChat.class)) {
+            if (chat.getMember1Id() == null || chat.getMember2Id() == null) {
+                continue;
+            }
+            // A duplicate of the pair keeps or takes the key depending on which one has history
+            if (personalChatService.adoptPairKey(chat).getId().equals(chat.getId())) {
+                backfilled++;
+            }
+        }
+        if (backfilled > 0) {
+            logger.info("Backfilled pair keys on {} personal chats", backfilled);
+        }
+    }
+}
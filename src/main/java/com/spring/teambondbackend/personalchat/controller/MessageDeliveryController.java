@@ -0,0 +1,43 @@
+package com.spring.teambondbackend.personalchat.controller;
+
+import com.spring.teambondbackend.personalchat.dto.ChatSyncDto;
+import com.spring.teambondbackend.personalchat.service.MessageDeliveryService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Catch-up after a reconnect. A client subscribes to
+ * {@code /app/personal_chat/sync/{userId}} and receives, as the reply to that one
+ * subscription, every message after its delivery cursors. It then acknowledges
+ * received sequence numbers on {@code /app/personal_chat/ack/{userId}/{otherUserId}}.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MessageDeliveryController {
+
+    private final MessageDeliveryService messageDeliveryService;
+
+    @Data
+    public static class AckRequest {
+        private long seq;
+    }
+
+    // The return value is sent to the subscribing session only, not broadcast
+    @SubscribeMapping("/personal_chat/sync/{userId}")
+    public List<ChatSyncDto> sync(@DestinationVariable String userId) {
+        return messageDeliveryService.pendingFor(userId);
+    }
+
+    @MessageMapping("/personal_chat/ack/{userId}/{otherUserId}")
+    public void acknowledge(@DestinationVariable String userId, @DestinationVariable String otherUserId,
+            @Payload AckRequest request) {
+        messageDeliveryService.acknowledge(userId, otherUserId, request.getSeq());
+    }
+}
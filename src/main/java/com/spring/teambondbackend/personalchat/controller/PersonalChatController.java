@@ -39,6 +39,40 @@ public class PersonalChatController {
         return ResponseEntity.ok(messages);
     }
 
+    // Cursor-paginated history: newest page first, "before" is the nextCursor of the previous page.
+    // "after" pages forward instead, e.g. from the nextAfterSeq of a truncated sync frame
+    @GetMapping("/{member1Id}/{member2Id}/history")
+    public ResponseEntity<?> getPersonalChatHistory(@PathVariable String member1Id, @PathVariable String member2Id,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "30", required = false) int limit) {
+        if (before != null && after != null) {
+            return ResponseEntity.badRequest().body("Pass either before or after, not both");
+        }
+        if (after != null) {
+            return personalChatService.getChatHistoryAfter(member1Id, member2Id, after, limit)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(404).body("Chat not found"));
+        }
+        return personalChatService.getChatHistory(member1Id, member2Id, before, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body("Chat not found"));
+    }
+
+    // Conversation list with last message and unread count, without message histories
+    @GetMapping("/inbox/{memberId}")
+    public ResponseEntity<?> getInbox(@PathVariable String memberId) {
+        return ResponseEntity.ok(personalChatService.getInbox(memberId));
+    }
+
+    @PostMapping("/{memberId}/{otherMemberId}/read")
+    public ResponseEntity<?> markRead(@PathVariable String memberId, @PathVariable String otherMemberId) {
+        if (!personalChatService.markRead(memberId, otherMemberId)) {
+            return ResponseEntity.status(404).body("Chat not found");
+        }
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/all_personal_chats/{memberId}")
     public ResponseEntity<?> getAllPersonalChatsOfAMember(@PathVariable String memberId) {
         System.out.println("getAllPersonalChatsOfAMember");
@@ -1,11 +1,15 @@
 package com.spring.teambondbackend.personalchat.controller;
 
 import com.spring.teambondbackend.personalchat.model.PersonalChat;
-import com.spring.teambondbackend.personalchat.repository.PersonalChatRepository;
+import com.spring.teambondbackend.personalchat.service.PersonalChatService;
 import com.spring.teambondbackend.registration.service.UserService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,8 +20,9 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @RequestMapping("/api")
 public class SecretKeyController {
-    private final PersonalChatRepository personalChatRepository;
+    private final PersonalChatService personalChatService;
     private final UserService userService;
+    private final MongoTemplate mongoTemplate;
 
     @Data
     private static class SecreKeysDto {
@@ -31,13 +36,16 @@ public class SecretKeyController {
             @PathVariable String member2Id,
            @RequestBody SecreKeysDto secretKeysDto
     ) {
-        // Use findByMemberIds to look up the chat
-        Optional<PersonalChat> chat = this.personalChatRepository.findByMemberIds(member1Id, member2Id);
+        // Pair key lookup, falling back to member ids for chats not keyed yet
+        Optional<PersonalChat> chat = this.personalChatService.findChat(member1Id, member2Id);
         System.out.println("Looking for chat with member1Id: " + member1Id + ", member2Id: " + member2Id);
         if (chat.isPresent()) {
-            chat.get().setSecretKey(member1Id+":"+secretKeysDto.getSecretKey());
-            chat.get().setSecretKey1(member2Id+":"+secretKeysDto.getSecretKey1());
-            this.personalChatRepository.save(chat.get());
+            // Set only the key fields: a full save would race with the message counter
+            Update update = new Update()
+                    .set("secretKey", member1Id+":"+secretKeysDto.getSecretKey())
+                    .set("secretKey1", member2Id+":"+secretKeysDto.getSecretKey1());
+            this.mongoTemplate.updateFirst(new Query(Criteria.where("id").is(chat.get().getId())), update,
+                    PersonalChat.class);
             System.out.println("Updated secret key for chat with _id: " + chat.get().getId());
             return ResponseEntity.ok().build();
         } else {
@@ -50,8 +58,8 @@ public class SecretKeyController {
     public ResponseEntity<?> getSecretKey(
             @PathVariable String member1Id,
             @PathVariable String member2Id) {
-        // Use findByMemberIds to look up the chat
-        Optional<PersonalChat> chat = this.personalChatRepository.findByMemberIds(member1Id, member2Id);
+        // Pair key lookup, falling back to member ids for chats not keyed yet
+        Optional<PersonalChat> chat = this.personalChatService.findChat(member1Id, member2Id);
         System.out.println("Looking for chat with member1Id: " + member1Id + ", member2Id: " + member2Id);
         if (chat.isPresent()) {
             String secretKey = chat.get().getSecretKey();
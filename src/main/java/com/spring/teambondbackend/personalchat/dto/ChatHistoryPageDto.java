@@ -0,0 +1,17 @@
+package com.spring.teambondbackend.personalchat.dto;
+
+import com.spring.teambondbackend.personalchat.model.Message;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChatHistoryPageDto {
+    // Oldest first within the page
+    private List<Message> messages;
+    // Pass as "before" (or "after" when paging forward) to load the next page; null when there is none
+    private Long nextCursor;
+    private boolean hasMore;
+}
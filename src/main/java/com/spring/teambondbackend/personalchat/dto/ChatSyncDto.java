@@ -0,0 +1,22 @@
+package com.spring.teambondbackend.personalchat.dto;
+
+import com.spring.teambondbackend.personalchat.model.Message;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChatSyncDto {
+    private String chatId;
+    private String otherUserId;
+    // Messages after the member's delivery cursor, oldest first
+    private List<Message> messages;
+    // Newest sequence number of the chat; acknowledge it once the messages are shown
+    private long latestSeq;
+    // More messages were missed than one sync frame carries: load the rest through /history
+    private boolean truncated;
+    // When truncated, the seq to pass as ?after= to /history for the next page; null otherwise
+    private Long nextAfterSeq;
+}
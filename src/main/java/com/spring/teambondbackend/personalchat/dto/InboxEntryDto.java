@@ -0,0 +1,19 @@
+package com.spring.teambondbackend.personalchat.dto;
+
+import com.spring.teambondbackend.personalchat.model.Message;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class InboxEntryDto {
+    private String chatId;
+    private String otherUserId;
+    private String otherUsername;
+    private String otherGithubUsername;
+    private String otherDisplayName;
+    private String otherAvatarUrl;
+    private Message lastMessage;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+}
@@ -11,6 +11,10 @@ public class PersonalChatResponseDto {
     private String id;
     private String githubUserName;
     private List<Message> messages;
+    // Only the newest messages are included. While hasMore is true, older ones are
+    // loaded from GET /api/v1/personal_chat/{member1Id}/{member2Id}/history?before=nextCursor
+    private Long nextCursor;
+    private boolean hasMore;
     public PersonalChatResponseDto(String githubUserName, List<Message> messages,String id) {
         this.githubUserName = githubUserName;
         this.messages = messages;
@@ -11,4 +11,8 @@ public class PersonalChatSingleResponseDto {
     private String member1Name;
     private String member2Name;
     private List<Message> message;
+    // Only the newest messages are included. While hasMore is true, older ones are
+    // loaded from GET /api/v1/personal_chat/{member1Id}/{member2Id}/history?before=nextCursor
+    private Long nextCursor;
+    private boolean hasMore;
 }
@@ -13,6 +13,8 @@ public class Message {
     private String sender;
     private String content;
     private LocalDateTime timestamp;
+    // Per-chat sequence number, assigned when the message is stored
+    private Long seq;
     
     // Convenience constructor
     public Message(String content, String sender) {
@@ -0,0 +1,28 @@
+package com.spring.teambondbackend.personalchat.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-size slice of a personal chat's history. Message {@code seq} n lives in
+ * bucket {@code (n - 1) / bucketSize}, so (chatId, bucketNo) is unique and a
+ * write or read touches one small document regardless of conversation length.
+ */
+@Data
+@Document(collection = "personal_chat_messages")
+public class MessageBucket {
+    @Id
+    private String id;
+    private String chatId;
+    private long bucketNo;
+    private long firstSeq;
+    private long lastSeq;
+    private int count;
+    private LocalDateTime lastTimestamp;
+    private List<Message> messages = new ArrayList<>();
+}
@@ -6,14 +6,17 @@ import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 @Data
 @Document(collection = "personal_chat")
 public class PersonalChat {
     @Id
     private String id;
+    // min(memberId)|max(memberId), unique: every lookup by member pair is one index hit
+    private String pairKey;
     @JsonProperty("chatId")
     private String member1Id;
     @JsonProperty("userId")
@@ -21,5 +24,16 @@ public class PersonalChat {
     private String secretKey;  // Encrypted with the receiver's public key
     private String secretKey1; // Encrypted with own sender's public key
 //    Stored as userID:chatSecretId
-    private List<Message> messages = new ArrayList<>();
+    // Messages live in personal_chat_messages buckets; this is the last assigned sequence number
+    private long messageCount;
+    // Inbox summary, maintained by the same update that assigns the sequence number
+    private Message lastMessage;
+    private LocalDateTime lastMessageAt;
+    private Map<String, Long> unreadCounts = new HashMap<>(); // userId -> unread messages
+    // userId -> highest sequence number the member's client acknowledged receiving
+    private Map<String, Long> deliveredSeq = new HashMap<>();
+
+    public static String pairKeyOf(String member1Id, String member2Id) {
+        return member1Id.compareTo(member2Id) <= 0 ? member1Id + "|" + member2Id : member2Id + "|" + member1Id;
+    }
 }
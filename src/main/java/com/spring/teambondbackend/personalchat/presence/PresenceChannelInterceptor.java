@@ -0,0 +1,31 @@
+package com.spring.teambondbackend.personalchat.presence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inbound channel interceptor that treats every client frame, STOMP heart-beats
+ * included, as a sign of life for the session's user. Idle but connected clients
+ * therefore stay online without sending the app-level heartbeat.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    // Looked up lazily: PresenceService broadcasts through the broker this channel feeds
+    private final ObjectProvider<PresenceService> presenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            presenceService.getObject().sessionActive(sessionId);
+        }
+        return message;
+    }
+}
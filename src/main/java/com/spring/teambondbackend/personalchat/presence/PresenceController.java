@@ -0,0 +1,72 @@
+package com.spring.teambondbackend.personalchat.presence;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Presence and typing over STOMP. Clients identify themselves with a
+ * {@code userId} header on CONNECT (or through their first heartbeat), send
+ * heartbeats to {@code /app/presence/heartbeat/{userId}} and typing changes to
+ * {@code /app/presence/typing/{member1Id}/{member2Id}}.
+ */
+@RestController
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private static final String USER_ID_HEADER = "userId";
+
+    private final PresenceService presenceService;
+
+    @Data
+    public static class TypingRequest {
+        private String userId;
+        private boolean typing;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String userId = accessor.getFirstNativeHeader(USER_ID_HEADER);
+        if (userId != null && !userId.isBlank() && accessor.getSessionId() != null) {
+            presenceService.sessionConnected(accessor.getSessionId(), userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        presenceService.sessionDisconnected(event.getSessionId());
+    }
+
+    @MessageMapping("/presence/heartbeat/{userId}")
+    public void heartbeat(@DestinationVariable String userId,
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        presenceService.heartbeat(sessionId, userId);
+    }
+
+    @MessageMapping("/presence/typing/{member1Id}/{member2Id}")
+    public void typing(@DestinationVariable String member1Id, @DestinationVariable String member2Id,
+            @Payload TypingRequest request) {
+        if (request.getUserId() != null) {
+            presenceService.typing(member1Id, member2Id, request.getUserId(), request.isTyping());
+        }
+    }
+
+    // Initial state for a chat header; later changes arrive on /api/v1/topic/presence/{userId}
+    @GetMapping("/api/v1/presence/{userId}")
+    public ResponseEntity<PresenceService.PresenceUpdate> getPresence(@PathVariable String userId) {
+        return ResponseEntity.ok(presenceService.getPresence(userId));
+    }
+}
@@ -0,0 +1,266 @@
+package com.spring.teambondbackend.personalchat.presence;
+
+import com.spring.teambondbackend.personalchat.broker.ChatBroadcastService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which users have a live STOMP session and who is typing in which chat.
+ * <p>
+ * State is kept in {@link ConcurrentHashMap}s and updated with atomic
+ * {@code compute} calls, so the inbound channel threads never block on a lock.
+ * A user is online while at least one session is connected and any inbound frame
+ * (including STOMP heart-beats, see {@link PresenceChannelInterceptor}) was seen
+ * within {@code presence.ttl-ms}; a periodic sweep expires the rest. Changes are
+ * broadcast on {@code /api/v1/topic/presence/{userId}} and
+ * {@code /api/v1/topic/typing/{member1Id}/{member2Id}}.
+ * <p>
+ * With {@code presence.redis-mirror.enabled} every instance also records the users
+ * it holds sessions for in a Redis hash per user ({@code presence:<userId>}, node id
+ * to expiry time). {@link #isOnline(String)} then sees users connected to other
+ * instances, and "offline" is only broadcast once no instance holds a live session.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+    private static final String PRESENCE_TOPIC = "/api/v1/topic/presence/";
+    private static final String TYPING_TOPIC = "/api/v1/topic/typing/";
+    private static final String REDIS_PREFIX = "presence:";
+
+    private final ChatBroadcastService chatBroadcastService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${presence.ttl-ms:60000}")
+    private long ttlMillis;
+
+    // Repeated "still typing" events within this window are not re-broadcast
+    @Value("${presence.typing.coalesce-ms:2000}")
+    private long typingCoalesceMillis;
+
+    @Value("${presence.typing.ttl-ms:6000}")
+    private long typingTtlMillis;
+
+    @Value("${presence.redis-mirror.enabled:false}")
+    private boolean redisMirrorEnabled;
+
+    public record PresenceUpdate(String userId, boolean online, long lastSeen) {
+    }
+
+    public record TypingUpdate(String userId, boolean typing) {
+    }
+
+    private static final class UserPresence {
+        final Set<String> sessions = ConcurrentHashMap.newKeySet();
+        volatile long lastSeen;
+        volatile long lastMirrored;
+    }
+
+    private record TypingState(boolean typing, long publishedAt, String topic) {
+    }
+
+    private final ConcurrentHashMap<String, UserPresence> presence = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> sessionUsers = new ConcurrentHashMap<>();
+    // "chatTopic|userId" -> last broadcast typing state
+    private final ConcurrentHashMap<String, TypingState> typing = new ConcurrentHashMap<>();
+
+    public void sessionConnected(String sessionId, String userId) {
+        String previous = sessionUsers.put(sessionId, userId);
+        if (userId.equals(previous)) {
+            touch(userId);
+            return;
+        }
+        boolean[] cameOnline = new boolean[1];
+        presence.compute(userId, (id, current) -> {
+            UserPresence entry = current != null ? current : new UserPresence();
+            cameOnline[0] = entry.sessions.isEmpty();
+            entry.sessions.add(sessionId);
+            entry.lastSeen = System.currentTimeMillis();
+            return entry;
+        });
+        mirror(userId, true);
+        if (cameOnline[0]) {
+            publishPresence(userId, true);
+        }
+    }
+
+    public void sessionDisconnected(String sessionId) {
+        String userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        boolean[] wentOffline = new boolean[1];
+        presence.computeIfPresent(userId, (id, entry) -> {
+            entry.sessions.remove(sessionId);
+            wentOffline[0] = entry.sessions.isEmpty();
+            return wentOffline[0] ? null : entry;
+        });
+        if (wentOffline[0]) {
+            goOffline(userId);
+        }
+    }
+
+    /**
+     * Heartbeat from a connected client. Also registers the session if the
+     * CONNECT frame did not carry a user id.
+     */
+    public void heartbeat(String sessionId, String userId) {
+        if (sessionId != null && !sessionUsers.containsKey(sessionId)) {
+            sessionConnected(sessionId, userId);
+            return;
+        }
+        touch(userId);
+    }
+
+    /**
+     * Any inbound frame of a known session, STOMP heart-beats included, keeps its
+     * user online.
+     */
+    public void sessionActive(String sessionId) {
+        String userId = sessionUsers.get(sessionId);
+        if (userId != null) {
+            touch(userId);
+        }
+    }
+
+    private void touch(String userId) {
+        UserPresence entry = presence.get(userId);
+        if (entry != null) {
+            entry.lastSeen = System.currentTimeMillis();
+            mirror(userId, true);
+        }
+    }
+
+    /**
+     * Publishes a typing change for a chat topic. A "typing" event is re-broadcast
+     * at most once per coalesce window; a stop is always broadcast once.
+     */
+    public void typing(String member1Id, String member2Id, String userId, boolean isTyping) {
+        String topic = TYPING_TOPIC + member1Id + "/" + member2Id;
+        long now = System.currentTimeMillis();
+        boolean[] publish = new boolean[1];
+        typing.compute(topic + "|" + userId, (key, previous) -> {
+            boolean changed = previous == null ? isTyping : previous.typing() != isTyping;
+            boolean refresh = isTyping && previous != null && now - previous.publishedAt() >= typingCoalesceMillis;
+            publish[0] = changed || refresh;
+            if (!isTyping) {
+                return null;
+            }
+            return publish[0] ? new TypingState(true, now, topic) : previous;
+        });
+        if (publish[0]) {
+            chatBroadcastService.broadcast(topic, new TypingUpdate(userId, isTyping));
+        }
+    }
+
+    public boolean isOnline(String userId) {
+        UserPresence entry = presence.get(userId);
+        if (entry != null && System.currentTimeMillis() - entry.lastSeen < ttlMillis) {
+            return true;
+        }
+        if (!redisMirrorEnabled) {
+            return false;
+        }
+        try {
+            return onlineElsewhere(userId);
+        } catch (Exception e) {
+            logger.warn("Presence lookup in Redis failed for {}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    // Whether any instance recorded a session of the user that has not expired yet
+    private boolean onlineElsewhere(String userId) {
+        long now = System.currentTimeMillis();
+        for (Object expiresAt : stringRedisTemplate.opsForHash().values(REDIS_PREFIX + userId)) {
+            if (Long.parseLong(expiresAt.toString()) > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public PresenceUpdate getPresence(String userId) {
+        UserPresence entry = presence.get(userId);
+        return new PresenceUpdate(userId, isOnline(userId), entry != null ? entry.lastSeen : 0L);
+    }
+
+    /**
+     * Expires users whose heartbeats stopped (e.g. a dropped connection without a
+     * DISCONNECT) and typing indicators whose "stop" never arrived.
+     */
+    @Scheduled(fixedDelayString = "${presence.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, UserPresence> entry : presence.entrySet()) {
+            if (now - entry.getValue().lastSeen >= ttlMillis
+                    && presence.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().sessions.forEach(sessionUsers::remove);
+                goOffline(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, TypingState> entry : typing.entrySet()) {
+            if (now - entry.getValue().publishedAt() >= typingTtlMillis && typing.remove(entry.getKey(), entry.getValue())) {
+                String key = entry.getKey();
+                String userId = key.substring(key.lastIndexOf('|') + 1);
+                chatBroadcastService.broadcast(entry.getValue().topic(), new TypingUpdate(userId, false));
+            }
+        }
+    }
+
+    private void goOffline(String userId) {
+        mirror(userId, false);
+        if (redisMirrorEnabled) {
+            try {
+                if (onlineElsewhere(userId)) {
+                    return;
+                }
+            } catch (Exception e) {
+                logger.warn("Presence lookup in Redis failed for {}: {}", userId, e.getMessage());
+            }
+        }
+        publishPresence(userId, false);
+    }
+
+    private void publishPresence(String userId, boolean online) {
+        chatBroadcastService.broadcast(PRESENCE_TOPIC + userId,
+                new PresenceUpdate(userId, online, System.currentTimeMillis()));
+    }
+
+    private void mirror(String userId, boolean online) {
+        if (!redisMirrorEnabled) {
+            return;
+        }
+        String key = REDIS_PREFIX + userId;
+        try {
+            if (!online) {
+                // Only this node's sessions ended; other instances keep their own entries
+                stringRedisTemplate.opsForHash().delete(key, nodeId);
+                return;
+            }
+            UserPresence entry = presence.get(userId);
+            long now = System.currentTimeMillis();
+            // Refresh a few times per period instead of on every frame
+            if (entry != null && now - entry.lastMirrored >= ttlMillis / 3) {
+                entry.lastMirrored = now;
+                stringRedisTemplate.opsForHash().put(key, nodeId, Long.toString(now + ttlMillis));
+                stringRedisTemplate.expire(key, Duration.ofMillis(ttlMillis));
+            }
+        } catch (Exception e) {
+            logger.warn("Presence mirror to Redis failed for {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.spring.teambondbackend.personalchat.repository;
+
+import com.spring.teambondbackend.personalchat.model.MessageBucket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface MessageBucketRepository extends MongoRepository<MessageBucket, String> {
+    List<MessageBucket> findByChatIdOrderByBucketNoAsc(String chatId);
+    List<MessageBucket> findByChatIdOrderByBucketNoDesc(String chatId, Pageable pageable);
+}
@@ -0,0 +1,530 @@
+package com.spring.teambondbackend.personalchat.service;
+
+import com.spring.teambondbackend.personalchat.model.Message;
+import com.spring.teambondbackend.personalchat.model.MessageBucket;
+import com.spring.teambondbackend.personalchat.model.PersonalChat;
+import com.spring.teambondbackend.personalchat.repository.MessageBucketRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores personal chat messages in fixed-size buckets.
+ * <p>
+ * Each message gets a per-chat sequence number from an atomic {@code $inc} on
+ * {@link PersonalChat#getMessageCount()} and is pushed into bucket
+ * {@code (seq - 1) / bucketSize}. The bucket size must not change once data
+ * exists, because bucket numbers are derived from it.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageBucketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageBucketService.class);
+    private static final String LEGACY_MESSAGES_FIELD = "messages";
+    // Tokens of the last batched reservations, see reserveSequences
+    private static final String RESERVATIONS_FIELD = "reservations";
+    private static final int RESERVATIONS_KEPT = 16;
+    private static final int APPEND_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageBucketRepository messageBucketRepository;
+
+    @Value("${personal-chat.bucket-size:100}")
+    private int bucketSize;
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public long bucketOf(long seq) {
+        return (seq - 1) / bucketSize;
+    }
+
+    /**
+     * A message on its way to storage. {@code recipientId} is the member whose
+     * unread counter it increments, or null if it cannot be determined.
+     */
+    public record PendingMessage(String chatId, String recipientId, Message message) {
+    }
+
+    /**
+     * Assigns the next sequence number to the message, appends it to its bucket and
+     * then records it as the chat's last message. The bucket write is idempotent
+     * (keyed on {@code seq}) and retried. If it still fails, the bucket is checked: a
+     * message that is known not to be stored gives its unread count back and is
+     * returned without a {@code seq}, so a retry takes a new one. Otherwise it keeps
+     * its {@code seq}, and {@link #storeReserved} can finish it without duplicates.
+     */
+    public Message append(String chatId, String recipientId, Message message) {
+        long seq = reserveSequence(chatId, List.of(new PendingMessage(chatId, recipientId, message)));
+        message.setSeq(seq);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                pushToBucket(chatId, message);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= APPEND_ATTEMPTS) {
+                    if (isStored(chatId, seq) == Boolean.FALSE) {
+                        releaseReservation(chatId, recipientId, seq);
+                        message.setSeq(null);
+                    } else {
+                        logger.error("Message {} of chat {} may not be stored: {}", seq, chatId, e.getMessage());
+                    }
+                    throw e;
+                }
+                logger.warn("Storing message {} of chat {} failed (attempt {}): {}", seq, chatId, attempt, e.getMessage());
+            }
+        }
+        updateLastMessages(Map.of(chatId, message));
+        return message;
+    }
+
+    /**
+     * @return whether the bucket holds the message, or null if that cannot be read
+     */
+    private Boolean isStored(String chatId, long seq) {
+        try {
+            return mongoTemplate.exists(new Query(Criteria.where("chatId").is(chatId)
+                    .and("bucketNo").is(bucketOf(seq)).and("messages.seq").is(seq)), MessageBucket.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void releaseReservation(String chatId, String recipientId, long seq) {
+        // The counter cannot be rolled back without racing later messages, so seq stays unused
+        logger.error("Message {} of chat {} was not stored; sequence number skipped", seq, chatId);
+        if (recipientId == null) {
+            return;
+        }
+        try {
+            String unread = "unreadCounts." + recipientId;
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(chatId).and(unread).gt(0)),
+                    new Update().inc(unread, -1), PersonalChat.class);
+        } catch (Exception e) {
+            logger.error("Could not correct unread count of {} in chat {}: {}", recipientId, chatId, e.getMessage());
+        }
+    }
+
+    /**
+     * Records stored messages as their chats' last message, unless a newer one is
+     * already recorded. Runs only after the bucket write, so the inbox never shows a
+     * message that is not in the history. Failures are logged: the next message
+     * corrects the summary.
+     */
+    private void updateLastMessages(Map<String, Message> lastPerChat) {
+        if (lastPerChat.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PersonalChat.class);
+            lastPerChat.forEach((chatId, message) -> bulk.updateOne(
+                    new Query(Criteria.where("id").is(chatId).orOperator(
+                            Criteria.where("lastMessage.seq").exists(false),
+                            Criteria.where("lastMessage.seq").lt(message.getSeq()))),
+                    new Update().set("lastMessage", message).set("lastMessageAt", message.getTimestamp())));
+            bulk.execute();
+        } catch (Exception e) {
+            logger.warn("Could not update last message of chats {}: {}", lastPerChat.keySet(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reserves consecutive sequence numbers for messages of one chat and returns the
+     * first one. The same atomic update bumps the recipients' unread counters; the
+     * last message is recorded once the message is stored. Chats that still embed their messages are migrated first, so new
+     * messages never collide with the sequence numbers of old ones.
+     */
+    public long reserveSequence(String chatId, List<PendingMessage> pending) {
+        Update update = reservationUpdate(pending);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Query query = new Query(Criteria.where("id").is(chatId).and(LEGACY_MESSAGES_FIELD).exists(false));
+            PersonalChat chat = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), PersonalChat.class);
+            if (chat != null) {
+                return chat.getMessageCount() - pending.size() + 1;
+            }
+            if (!migrateChat(chatId)) {
+                throw new RuntimeException("Personal chat not found: " + chatId);
+            }
+        }
+        throw new IllegalStateException("Could not reserve message sequence for chat " + chatId);
+    }
+
+    private static Update reservationUpdate(List<PendingMessage> pending) {
+        Update update = new Update().inc("messageCount", pending.size());
+        Map<String, Integer> unread = new LinkedHashMap<>();
+        for (PendingMessage message : pending) {
+            if (message.recipientId() != null) {
+                unread.merge(message.recipientId(), 1, Integer::sum);
+            }
+        }
+        unread.forEach((recipientId, count) -> update.inc("unreadCounts." + recipientId, count));
+        return update;
+    }
+
+    /**
+     * Reserves sequence ranges for several chats in a fixed number of round trips: one
+     * read of the current counters and one unordered bulk update, each operation
+     * pinned to the counter it read. The bulk operations also push a token for the
+     * reservation (the chat keeps the last few), which tells after a partial match
+     * which operations applied. Chats that lost a race, still embed their messages or
+     * failed otherwise fall back to {@link #reserveSequence}.
+     *
+     * @return chat id to first reserved sequence number; chats that could not be
+     *         reserved are missing
+     */
+    Map<String, Long> reserveSequences(Map<String, List<PendingMessage>> byChat) {
+        Map<String, Long> firstSeqs = new HashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        String token = UUID.randomUUID().toString();
+        try {
+            Query read = new Query(Criteria.where("id").in(byChat.keySet()).and(LEGACY_MESSAGES_FIELD).exists(false));
+            read.fields().include("messageCount");
+            for (PersonalChat chat : mongoTemplate.find(read, PersonalChat.class)) {
+                counts.put(chat.getId(), chat.getMessageCount());
+            }
+            if (!counts.isEmpty()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PersonalChat.class);
+                counts.forEach((chatId, count) -> bulk.updateOne(
+                        new Query(Criteria.where("id").is(chatId).and("messageCount").is(count)
+                                .and(LEGACY_MESSAGES_FIELD).exists(false)),
+                        reservationUpdate(byChat.get(chatId))
+                                .push(RESERVATIONS_FIELD).slice(-RESERVATIONS_KEPT).each(token)));
+                if (bulk.execute().getMatchedCount() == counts.size()) {
+                    counts.forEach((chatId, count) -> firstSeqs.put(chatId, count + 1));
+                    return firstSeqs;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Batched sequence reservation failed, reserving per chat: {}", e.getMessage());
+        }
+
+        if (!counts.isEmpty()) {
+            try {
+                Query check = new Query(Criteria.where("id").in(counts.keySet()).and(RESERVATIONS_FIELD).is(token));
+                check.fields().include("_id");
+                for (PersonalChat chat : mongoTemplate.find(check, PersonalChat.class)) {
+                    firstSeqs.put(chat.getId(), counts.get(chat.getId()) + 1);
+                }
+            } catch (Exception e) {
+                // Reserving again is safe but leaves an unused range if the bulk did apply
+                logger.error("Could not verify batched reservations for chats {}, their sequences may skip a range: {}",
+                        counts.keySet(), e.getMessage());
+            }
+        }
+        return reservePerChat(byChat, firstSeqs);
+    }
+
+    private Map<String, Long> reservePerChat(Map<String, List<PendingMessage>> byChat, Map<String, Long> firstSeqs) {
+        for (Map.Entry<String, List<PendingMessage>> entry : byChat.entrySet()) {
+            if (!firstSeqs.containsKey(entry.getKey())) {
+                try {
+                    firstSeqs.put(entry.getKey(), reserveSequence(entry.getKey(), entry.getValue()));
+                } catch (Exception e) {
+                    logger.warn("Could not reserve sequence numbers for chat {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        }
+        return firstSeqs;
+    }
+
+    /**
+     * Group commit: reserves the sequence ranges of every chat in the window that do
+     * not hold one yet (see {@link #reserveSequences}), then writes every touched bucket
+     * in a single ordered bulk write. Messages keep their order within a chat.
+     *
+     * @return the messages that were not stored, in their original order. Those with a
+     *         {@code seq} already hold their reservation and must be stored with
+     *         {@link #storeReserved}; the others still need {@link #append}
+     */
+    public List<PendingMessage> appendAll(List<PendingMessage> pending) {
+        Map<String, List<PendingMessage>> byChat = new LinkedHashMap<>();
+        for (PendingMessage message : pending) {
+            if (message.message().getSeq() == null) {
+                byChat.computeIfAbsent(message.chatId(), k -> new ArrayList<>()).add(message);
+            }
+        }
+
+        Map<String, Long> firstSeqs = byChat.isEmpty() ? new HashMap<>() : reserveSequences(byChat);
+        Set<PendingMessage> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, List<PendingMessage>> byBucket = new LinkedHashMap<>();
+        for (PendingMessage item : pending) {
+            Long reserved = item.message().getSeq();
+            if (reserved != null) {
+                byBucket.computeIfAbsent(item.chatId() + "|" + bucketOf(reserved), k -> new ArrayList<>()).add(item);
+                continue;
+            }
+            Long first = firstSeqs.get(item.chatId());
+            if (first == null) {
+                failed.add(item);
+                continue;
+            }
+            item.message().setSeq(first);
+            firstSeqs.put(item.chatId(), first + 1);
+            byBucket.computeIfAbsent(item.chatId() + "|" + bucketOf(first), k -> new ArrayList<>()).add(item);
+        }
+
+        List<List<PendingMessage>> bucketGroups = new ArrayList<>(byBucket.values());
+        List<Pair<Query, Update>> upserts = new ArrayList<>(bucketGroups.size());
+        for (List<PendingMessage> group : bucketGroups) {
+            // Numbers reserved at submit time may reach the queue slightly out of order
+            group.sort(Comparator.comparingLong(item -> item.message().getSeq()));
+            List<Message> messages = new ArrayList<>(group.size());
+            group.forEach(item -> messages.add(item.message()));
+            Message first = messages.get(0);
+            Message last = messages.get(messages.size() - 1);
+            // The group is pushed atomically, so its first seq tells whether it is stored already
+            Query query = new Query(Criteria.where("chatId").is(group.get(0).chatId())
+                    .and("bucketNo").is(bucketOf(first.getSeq())).and("messages.seq").ne(first.getSeq()));
+            Update update = new Update()
+                    .push("messages").each(messages.toArray())
+                    .inc("count", messages.size())
+                    .min("firstSeq", first.getSeq())
+                    .max("lastSeq", last.getSeq())
+                    .max("lastTimestamp", last.getTimestamp());
+            upserts.add(Pair.of(query, update));
+        }
+
+        int from = 0;
+        for (int attempt = 0; from < upserts.size(); attempt++) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, MessageBucket.class)
+                        .upsert(upserts.subList(from, upserts.size()))
+                        .execute();
+                from = upserts.size();
+            } catch (BulkOperationException e) {
+                // Ordered: everything before the first error was applied, nothing after it ran.
+                // A duplicate key means a concurrent writer created the bucket (retrying matches
+                // it) or the group is stored already (it keeps failing and goes to storeReserved).
+                if (!e.getErrors().isEmpty()) {
+                    from += e.getErrors().get(0).getIndex();
+                }
+                if (attempt >= 2 || e.getErrors().isEmpty()) {
+                    logger.warn("Bulk write of chat buckets failed: {}", e.getMessage());
+                    break;
+                }
+            } catch (Exception e) {
+                // Outcome unknown: hand everything not known to be applied back for single writes
+                logger.warn("Bulk write of chat buckets failed: {}", e.getMessage());
+                break;
+            }
+        }
+        Map<String, Message> lastPerChat = new HashMap<>();
+        for (int i = 0; i < bucketGroups.size(); i++) {
+            if (i >= from) {
+                failed.addAll(bucketGroups.get(i));
+            } else {
+                bucketGroups.get(i).forEach(item -> lastPerChat.put(item.chatId(), item.message()));
+            }
+        }
+        updateLastMessages(lastPerChat);
+        return failed.isEmpty() ? List.of() : pending.stream().filter(failed::contains).toList();
+    }
+
+    /**
+     * Stores a message whose sequence number is already reserved, e.g. one handed back
+     * by {@link #appendAll}.
+     */
+    public void storeReserved(String chatId, Message message) {
+        pushToBucket(chatId, message);
+        updateLastMessages(Map.of(chatId, message));
+    }
+
+    /**
+     * Idempotent: a bucket that already holds the seq does not match, so a retry after
+     * a lost acknowledgement cannot store the message twice.
+     */
+    private void pushToBucket(String chatId, Message message) {
+        long seq = message.getSeq();
+        Query query = new Query(Criteria.where("chatId").is(chatId).and("bucketNo").is(bucketOf(seq))
+                .and("messages.seq").ne(seq));
+        Update update = new Update()
+                .push("messages", message)
+                .inc("count", 1)
+                .min("firstSeq", seq)
+                .max("lastSeq", seq)
+                .max("lastTimestamp", message.getTimestamp());
+        try {
+            mongoTemplate.upsert(query, update, MessageBucket.class);
+        } catch (DuplicateKeyException e) {
+            // The bucket exists: created concurrently (this update matches it) or already
+            // holding the message (nothing matches, nothing to do)
+            mongoTemplate.updateFirst(query, update, MessageBucket.class);
+        }
+    }
+
+    /**
+     * Full history in sequence order. Prefer {@link #getRecentMessages(String, int)}
+     * where the whole conversation is not needed.
+     */
+    public List<Message> getAllMessages(String chatId) {
+        List<Message> messages = new ArrayList<>();
+        for (MessageBucket bucket : messageBucketRepository.findByChatIdOrderByBucketNoAsc(chatId)) {
+            messages.addAll(sortedMessages(bucket));
+        }
+        return messages;
+    }
+
+    /**
+     * The last {@code limit} messages, read from at most the newest buckets that can
+     * contain them.
+     */
+    public List<Message> getRecentMessages(String chatId, int limit) {
+        int bucketsNeeded = (limit + bucketSize - 1) / bucketSize + 1;
+        List<MessageBucket> buckets = messageBucketRepository.findByChatIdOrderByBucketNoDesc(chatId,
+                PageRequest.of(0, bucketsNeeded));
+        List<Message> messages = new ArrayList<>();
+        for (int i = buckets.size() - 1; i >= 0; i--) {
+            messages.addAll(sortedMessages(buckets.get(i)));
+        }
+        return messages.size() > limit ? new ArrayList<>(messages.subList(messages.size() - limit, messages.size()))
+                : messages;
+    }
+
+    /**
+     * One page of history ending just before {@code beforeSeq} (or at the newest
+     * message when null). Reads only the buckets that can hold the page, through
+     * the (chatId, bucketNo) index.
+     *
+     * @return up to {@code limit} messages, oldest first
+     */
+    public List<Message> getMessagesBefore(String chatId, Long beforeSeq, int limit) {
+        Criteria criteria = Criteria.where("chatId").is(chatId);
+        if (beforeSeq != null) {
+            if (beforeSeq <= 1) {
+                return new ArrayList<>();
+            }
+            criteria = criteria.and("bucketNo").lte(bucketOf(beforeSeq - 1));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "bucketNo"))
+                .limit((limit + bucketSize - 1) / bucketSize + 1);
+        List<MessageBucket> buckets = mongoTemplate.find(query, MessageBucket.class);
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = buckets.size() - 1; i >= 0; i--) {
+            for (Message message : sortedMessages(buckets.get(i))) {
+                if (beforeSeq == null || (message.getSeq() != null && message.getSeq() < beforeSeq)) {
+                    messages.add(message);
+                }
+            }
+        }
+        return messages.size() > limit ? new ArrayList<>(messages.subList(messages.size() - limit, messages.size()))
+                : messages;
+    }
+
+    /**
+     * Messages with a sequence number greater than {@code afterSeq}, oldest first,
+     * read from the buckets from {@code afterSeq + 1} onwards.
+     *
+     * @return up to {@code limit} messages
+     */
+    public List<Message> getMessagesAfter(String chatId, long afterSeq, int limit) {
+        Query query = new Query(Criteria.where("chatId").is(chatId).and("bucketNo").gte(bucketOf(afterSeq + 1)))
+                .with(Sort.by(Sort.Direction.ASC, "bucketNo"))
+                .limit((limit + bucketSize - 1) / bucketSize + 1);
+        List<Message> messages = new ArrayList<>();
+        for (MessageBucket bucket : mongoTemplate.find(query, MessageBucket.class)) {
+            for (Message message : sortedMessages(bucket)) {
+                if (message.getSeq() != null && message.getSeq() > afterSeq) {
+                    messages.add(message);
+                    if (messages.size() == limit) {
+                        return messages;
+                    }
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Moves a chat's embedded {@code messages} array into buckets.
+     * <p>
+     * Buckets are written with {@code $set} first, so a crash part way is repaired by
+     * running again. The array is then removed, and the counter set, in one update
+     * that only matches if the array still has the size that was copied.
+     *
+     * @return false if the chat does not exist
+     */
+    public boolean migrateChat(String chatId) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        String collection = mongoTemplate.getCollectionName(PersonalChat.class);
+        while (true) {
+            // Raw read, since the mapped entity no longer has the legacy field
+            Object rawId = ObjectId.isValid(chatId) ? new ObjectId(chatId) : chatId;
+            Document raw = mongoTemplate.findOne(new Query(Criteria.where("_id").is(rawId)), Document.class,
+                    collection);
+            if (raw == null) {
+                return false;
+            }
+            List<?> legacy = (List<?>) raw.get(LEGACY_MESSAGES_FIELD);
+            if (legacy == null) {
+                return true;
+            }
+
+            List<Message> messages = new ArrayList<>(legacy.size());
+            for (Object item : legacy) {
+                messages.add(converter.read(Message.class, (Document) item));
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                messages.get(i).setSeq((long) i + 1);
+            }
+            for (int start = 0; start < messages.size(); start += bucketSize) {
+                List<Message> slice = messages.subList(start, Math.min(start + bucketSize, messages.size()));
+                long firstSeq = slice.get(0).getSeq();
+                Query query = new Query(Criteria.where("chatId").is(chatId).and("bucketNo").is(bucketOf(firstSeq)));
+                Update update = new Update()
+                        .set("messages", slice)
+                        .set("count", slice.size())
+                        .set("firstSeq", firstSeq)
+                        .set("lastSeq", slice.get(slice.size() - 1).getSeq())
+                        .set("lastTimestamp", slice.get(slice.size() - 1).getTimestamp());
+                mongoTemplate.upsert(query, update, MessageBucket.class);
+            }
+
+            Query unset = new Query(Criteria.where("id").is(chatId).and(LEGACY_MESSAGES_FIELD).size(messages.size()));
+            Update finish = new Update().unset(LEGACY_MESSAGES_FIELD).set("messageCount", (long) messages.size());
+            if (mongoTemplate.updateFirst(unset, finish, PersonalChat.class).getModifiedCount() > 0) {
+                logger.info("Migrated {} messages of personal chat {} into buckets", messages.size(), chatId);
+                return true;
+            }
+            // The array changed while we copied it (or another node finished first): re-read
+        }
+    }
+
+    private static List<Message> sortedMessages(MessageBucket bucket) {
+        List<Message> messages = bucket.getMessages() != null ? bucket.getMessages() : new ArrayList<>();
+        // Concurrent writers may push slightly out of order within a bucket
+        messages.sort(Comparator.comparing(Message::getSeq, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return messages;
+    }
+}
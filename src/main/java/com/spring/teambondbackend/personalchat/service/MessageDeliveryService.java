@@ -0,0 +1,94 @@
+package com.spring.teambondbackend.personalchat.service;
+
+import com.spring.teambondbackend.personalchat.dto.ChatSyncDto;
+import com.spring.teambondbackend.personalchat.model.Message;
+import com.spring.teambondbackend.personalchat.model.PersonalChat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-member delivery cursors for personal chats.
+ * <p>
+ * Clients acknowledge the highest sequence number they have received; the cursor
+ * only moves forward ({@code $max}). On reconnect a client asks for everything
+ * after its cursors and gets the missed messages of all its chats in one frame,
+ * instead of refetching every chat's history. The lookup is one query over the
+ * member's chats (only counters and cursors are read) plus bucket reads for the
+ * chats that actually have a gap.
+ */
+@Service
+@RequiredArgsConstructor
+public class MessageDeliveryService {
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageBucketService messageBucketService;
+    private final PersonalChatService personalChatService;
+
+    // Missed messages per chat in one sync frame; longer gaps are flagged as truncated
+    // and carry a cursor for the rest
+    @Value("${personal-chat.sync.max-messages-per-chat:100}")
+    private int maxMessagesPerChat;
+
+    // Chats with missed messages in one sync frame, most recently active first
+    @Value("${personal-chat.sync.max-chats:50}")
+    private int maxChats;
+
+    /**
+     * Moves the member's cursor for the chat forward to {@code seq}.
+     *
+     * @return false if the chat does not exist
+     */
+    public boolean acknowledge(String memberId, String otherMemberId, long seq) {
+        return personalChatService.resolveChatId(memberId, otherMemberId).map(chatId -> {
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(chatId)),
+                    new Update().max("deliveredSeq." + memberId, seq), PersonalChat.class);
+            return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Messages the member has not acknowledged yet, grouped by chat. Chats without
+     * a gap are left out, so a client that was only briefly away gets a small frame.
+     */
+    public List<ChatSyncDto> pendingFor(String memberId) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("member1Id").is(memberId), Criteria.where("member2Id").is(memberId)))
+                .with(Sort.by(Sort.Direction.DESC, "lastMessageAt"));
+        query.fields().include("member1Id", "member2Id", "messageCount", "deliveredSeq." + memberId);
+
+        List<ChatSyncDto> pending = new ArrayList<>();
+        for (PersonalChat chat : mongoTemplate.find(query, PersonalChat.class)) {
+            Long cursor = chat.getDeliveredSeq() != null ? chat.getDeliveredSeq().get(memberId) : null;
+            long delivered = cursor != null ? cursor : 0L;
+            if (chat.getMessageCount() <= delivered) {
+                continue;
+            }
+            // One extra message tells whether more follow; counting against messageCount would
+            // also count numbers left unused by failed writes
+            List<Message> messages = messageBucketService.getMessagesAfter(chat.getId(), delivered, maxMessagesPerChat + 1);
+            if (messages.isEmpty()) {
+                continue;
+            }
+            boolean truncated = messages.size() > maxMessagesPerChat;
+            if (truncated) {
+                messages = new ArrayList<>(messages.subList(0, maxMessagesPerChat));
+            }
+            Long nextAfterSeq = truncated ? messages.get(messages.size() - 1).getSeq() : null;
+            String otherUserId = memberId.equals(chat.getMember1Id()) ? chat.getMember2Id() : chat.getMember1Id();
+            pending.add(new ChatSyncDto(chat.getId(), otherUserId, messages, chat.getMessageCount(), truncated, nextAfterSeq));
+            if (pending.size() == maxChats) {
+                break;
+            }
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,203 @@
+package com.spring.teambondbackend.personalchat.service;
+
+import com.spring.teambondbackend.personalchat.model.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind buffer for personal chat messages.
+ * <p>
+ * When enabled, the send path reserves the message's sequence number (so the
+ * broadcast frame carries a {@code seq} clients can acknowledge), hands it to a
+ * bounded queue and broadcasts it right away. A single flusher thread collects
+ * messages for up to {@code window-ms} (or {@code max-batch} messages) and writes
+ * the whole window through {@link MessageBucketService#appendAll(List)} in one bulk
+ * write. A full queue blocks the sender for at most {@code offer-timeout-ms} and then
+ * falls back to a synchronous bucket write; order is kept by the reserved numbers.
+ * <p>
+ * Messages the group commit could not store are written one by one (up to
+ * {@code retry-attempts} each), since recipients have already seen them. Messages
+ * that still fail are logged and counted in {@code personal_chat.write_behind.lost}.
+ * Messages are flushed on shutdown, but anything still buffered when the process
+ * is killed is lost, so the window should stay short.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBuffer.class);
+
+    private final MessageBucketService messageBucketService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${personal-chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${personal-chat.write-behind.window-ms:10}")
+    private long windowMillis;
+
+    @Value("${personal-chat.write-behind.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${personal-chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${personal-chat.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMillis;
+
+    @Value("${personal-chat.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${personal-chat.write-behind.retry-attempts:3}")
+    private int retryAttempts;
+
+    private BlockingQueue<MessageBucketService.PendingMessage> queue;
+    private Counter lostMessages;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        lostMessages = Counter.builder("personal_chat.write_behind.lost")
+                .description("Broadcast messages that could not be stored")
+                .register(meterRegistry);
+        running = true;
+        flusher = new Thread(this::flushLoop, "chat-write-behind");
+        flusher.start();
+        logger.info("Chat write-behind enabled (window={}ms, maxBatch={}, capacity={})",
+                windowMillis, maxBatch, queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves the message's sequence number and buffers it, or writes it right away
+     * when the buffer is shutting down or stays full for {@code offer-timeout-ms}.
+     */
+    public void submit(String chatId, String recipientId, Message message) {
+        MessageBucketService.PendingMessage pending = new MessageBucketService.PendingMessage(chatId, recipientId, message);
+        message.setSeq(messageBucketService.reserveSequence(chatId, List.of(pending)));
+        if (running) {
+            try {
+                if (queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        messageBucketService.storeReserved(chatId, message);
+    }
+
+    private void flushLoop() {
+        List<MessageBucketService.PendingMessage> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                MessageBucketService.PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    MessageBucketService.PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining until the queue is empty
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<MessageBucketService.PendingMessage> batch) {
+        List<MessageBucketService.PendingMessage> failed;
+        try {
+            failed = messageBucketService.appendAll(batch);
+        } catch (Exception e) {
+            logger.warn("Group commit of {} buffered messages failed: {}", batch.size(), e.getMessage());
+            failed = batch;
+        }
+        // In order, so any message that still needs a sequence number gets it in send order
+        for (MessageBucketService.PendingMessage pending : failed) {
+            if (!storeSingly(pending)) {
+                lostMessages.increment();
+            }
+        }
+    }
+
+    private boolean storeSingly(MessageBucketService.PendingMessage pending) {
+        Message message = pending.message();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // A message that holds a sequence number (from the group commit, or from an
+                // append whose outcome is unknown) only needs its idempotent bucket write
+                if (message.getSeq() == null) {
+                    messageBucketService.append(pending.chatId(), pending.recipientId(), message);
+                } else {
+                    messageBucketService.storeReserved(pending.chatId(), message);
+                }
+                return true;
+            } catch (Exception e) {
+                if (attempt >= retryAttempts) {
+                    logger.error("Lost buffered message of chat {} (seq {}) after {} attempts: {}",
+                            pending.chatId(), message.getSeq(), attempt, e.getMessage(), e);
+                    return false;
+                }
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    // Shutdown: give up on the backoff, not on the message
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.error("Chat write-behind stopped with {} messages still buffered", queue.size());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.spring.teambondbackend.personalchat.service;
 
 
+import com.spring.teambondbackend.personalchat.dto.ChatHistoryPageDto;
+import com.spring.teambondbackend.personalchat.dto.InboxEntryDto;
 import com.spring.teambondbackend.personalchat.dto.PersonalChatResponseDto;
 import com.spring.teambondbackend.personalchat.dto.PersonalChatSingleResponseDto;
 import com.spring.teambondbackend.personalchat.model.Message;
@@ -9,26 +11,173 @@ import com.spring.teambondbackend.personalchat.repository.PersonalChatRepository
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 public class PersonalChatService {
+    private static final Logger logger = LoggerFactory.getLogger(PersonalChatService.class);
     private final PersonalChatRepository personalChatRepository;
     private final UserRepository userRepository;
+    private final MessageBucketService messageBucketService;
+    private final MongoTemplate mongoTemplate;
+
+    // How many of the newest messages the chat list and create_or_get responses carry
+    @Value("${personal-chat.recent-messages:50}")
+    private int recentMessages;
+
+    @Value("${personal-chat.history.max-page-size:100}")
+    private int maxHistoryPageSize;
+
+    @Value("${personal-chat.chat-id-cache.max-entries:10000}")
+    private int chatIdCacheMaxEntries;
+
+    // Member pair -> chat id. Chats are never deleted; a pair key only moves away from an
+    // empty chat (see adoptPairKey), which can happen on any node until the backfill is
+    // done, so nothing is cached before that
+    private final ConcurrentHashMap<String, String> chatIdCache = new ConcurrentHashMap<>();
+
+    // Set once the startup backfill has given every chat its pair key; from then on a
+    // pair key miss means there is no chat, without the scan by member ids
+    private volatile boolean pairKeysBackfilled;
+
+    /**
+     * Resolves the chat of two members without a database round trip once the pair
+     * has been seen by this node and the pair key backfill is done.
+     */
+    public Optional<String> resolveChatId(String member1Id, String member2Id) {
+        String pairKey = PersonalChat.pairKeyOf(member1Id, member2Id);
+        String cached = chatIdCache.get(pairKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        boolean cacheable = pairKeysBackfilled;
+        Optional<String> chatId = findChat(member1Id, member2Id).map(PersonalChat::getId);
+        if (cacheable) {
+            chatId.ifPresent(id -> cacheChatId(pairKey, id));
+        }
+        return chatId;
+    }
+
+    /**
+     * Called once every chat without a pair key has been through {@link #adoptPairKey}.
+     * Pair keys no longer move after that, so chat ids can be cached and lookups stop
+     * falling back to member ids.
+     */
+    public void markPairKeysBackfilled() {
+        pairKeysBackfilled = true;
+    }
+
+    /**
+     * Finds the chat of two members by its pair key. A chat that has no key yet (created
+     * before the key existed, or by a node that does not set it) is found by member ids
+     * and adopts the key on the spot, so it is reachable before the startup backfill
+     * gets to it. Once the backfill is done, a miss is answered by the key lookup alone.
+     */
+    public Optional<PersonalChat> findChat(String member1Id, String member2Id) {
+        Optional<PersonalChat> chat = personalChatRepository.findByPairKey(PersonalChat.pairKeyOf(member1Id, member2Id));
+        if (chat.isPresent() || pairKeysBackfilled) {
+            return chat;
+        }
+        Query legacy = new Query(new Criteria().andOperator(
+                Criteria.where("pairKey").exists(false),
+                new Criteria().orOperator(
+                        Criteria.where("member1Id").is(member1Id).and("member2Id").is(member2Id),
+                        Criteria.where("member1Id").is(member2Id).and("member2Id").is(member1Id))));
+        PersonalChat legacyChat = mongoTemplate.findOne(legacy, PersonalChat.class);
+        return legacyChat == null ? Optional.empty() : Optional.of(adoptPairKey(legacyChat));
+    }
+
+    /**
+     * Gives a chat without a pair key its key. If another chat already holds the key,
+     * the one with message history wins: an empty holder (e.g. created by create_or_get
+     * while the history was still unkeyed) gives the key up. When both have history
+     * neither is touched and the conflict is logged for a manual merge.
+     *
+     * @return the chat that holds the key afterwards
+     */
+    public PersonalChat adoptPairKey(PersonalChat chat) {
+        String pairKey = PersonalChat.pairKeyOf(chat.getMember1Id(), chat.getMember2Id());
+        try {
+            setPairKey(chat.getId(), pairKey);
+            chat.setPairKey(pairKey);
+            return chat;
+        } catch (DuplicateKeyException e) {
+            PersonalChat holder = personalChatRepository.findByPairKey(pairKey).orElse(null);
+            if (holder == null || holder.getId().equals(chat.getId())) {
+                return holder != null ? holder : chat;
+            }
+            boolean chatHasHistory = hasHistory(chat.getId());
+            if (chatHasHistory && !hasHistory(holder.getId())) {
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(holder.getId())),
+                        new Update().unset("pairKey"), PersonalChat.class);
+                setPairKey(chat.getId(), pairKey);
+                chat.setPairKey(pairKey);
+                logger.warn("Moved pair key {} from empty chat {} to chat {} with history", pairKey, holder.getId(),
+                        chat.getId());
+                return chat;
+            }
+            if (chatHasHistory) {
+                logger.error("Chats {} and {} both have history for pair {}; only {} is reachable until they are merged",
+                        holder.getId(), chat.getId(), pairKey, holder.getId());
+            }
+            return holder;
+        }
+    }
+
+    private void setPairKey(String chatId, String pairKey) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(chatId)), new Update().set("pairKey", pairKey),
+                PersonalChat.class);
+    }
+
+    // Migrated messages count towards messageCount; unmigrated ones are still embedded
+    private boolean hasHistory(String chatId) {
+        return mongoTemplate.exists(new Query(new Criteria().andOperator(
+                Criteria.where("id").is(chatId),
+                new Criteria().orOperator(
+                        Criteria.where("messageCount").gt(0),
+                        Criteria.where("messages.0").exists(true)))), PersonalChat.class);
+    }
+
+    private void cacheChatId(String pairKey, String chatId) {
+        if (chatIdCache.size() >= chatIdCacheMaxEntries) {
+            // Crude bound; refilling costs one indexed lookup per active pair
+            chatIdCache.clear();
+        }
+        chatIdCache.put(pairKey, chatId);
+    }
+
     public PersonalChatSingleResponseDto    createOrGetPersonalChat(String member1Id, String member2Id) {
-        Optional<PersonalChat> existingChat = personalChatRepository.findByMemberIds(member1Id, member2Id);
+        Optional<PersonalChat> existingChat = findChat(member1Id, member2Id);
         if (existingChat.isPresent()) {
             PersonalChatSingleResponseDto responseDto = new PersonalChatSingleResponseDto();
             Optional<User> userI = userRepository.findById(member1Id);
             Optional<User> userII = userRepository.findById(member2Id);
-            responseDto.setMessage(existingChat.get().getMessages());
+            List<Message> recent = messageBucketService.getRecentMessages(existingChat.get().getId(), recentMessages);
+            responseDto.setMessage(recent);
+            responseDto.setNextCursor(cursorOf(recent));
+            responseDto.setHasMore(responseDto.getNextCursor() != null);
             responseDto.setMember1Name(userI.get().getGithubUsername());
             responseDto.setMember2Name(userII.get().getGithubUsername());
             return responseDto;
@@ -39,71 +188,184 @@ public class PersonalChatService {
         User user2 = userRepository.findById(member2Id)
                 .orElseThrow(() -> new RuntimeException("User not found: " + member2Id));
 
-        PersonalChat personalChat = new PersonalChat();
-        personalChat.setMember1Id(user1.getId());
-        personalChat.setMember2Id(user2.getId());
-        personalChatRepository.save(personalChat);
+        // Upsert on the unique pair key: concurrent calls for the same pair end up with one chat
+        PersonalChat personalChat = insertChatIfAbsent(user1.getId(), user2.getId());
+        cacheChatId(personalChat.getPairKey(), personalChat.getId());
         PersonalChatSingleResponseDto personalChatSingleResponseDto = new PersonalChatSingleResponseDto();
         Optional<User> userA = userRepository.findById(personalChat.getMember1Id());
         Optional<User> userB = userRepository.findById(personalChat.getMember2Id());
         if (userA.isPresent() && userB.isPresent()) {
             personalChatSingleResponseDto.setMember1Name(userA.get().getGithubUsername());
             personalChatSingleResponseDto.setMember2Name(userB.get().getGithubUsername());
-            personalChatSingleResponseDto.setMessage(personalChat.getMessages());
+            personalChatSingleResponseDto.setMessage(new ArrayList<>());
         }
         return personalChatSingleResponseDto;
     }
 
+    private PersonalChat insertChatIfAbsent(String member1Id, String member2Id) {
+        Query query = new Query(Criteria.where("pairKey").is(PersonalChat.pairKeyOf(member1Id, member2Id)));
+        Update update = new Update()
+                .setOnInsert("member1Id", member1Id)
+                .setOnInsert("member2Id", member2Id)
+                .setOnInsert("messageCount", 0L);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, PersonalChat.class);
+        } catch (DuplicateKeyException e) {
+            // Lost the insert race; the other request's chat now matches
+            return mongoTemplate.findAndModify(query, update, options, PersonalChat.class);
+        }
+    }
+
     public List<Message> getPersonalChatMessages(String member1Id, String member2Id) {
-        return personalChatRepository.findByMemberIds(member1Id, member2Id)
-                .map(PersonalChat::getMessages)
+        return findChat(member1Id, member2Id)
+                .map(chat -> messageBucketService.getAllMessages(chat.getId()))
                 .orElse(Collections.emptyList());
     }
 
     public List<PersonalChatResponseDto> getPersonalChatsOfaMember(String memberId) {
         List<PersonalChat> personalChats = personalChatRepository.findByMember1IdOrMember2Id(memberId, memberId);
-        System.out.println("Fetched personal chats: " + personalChats);
+        Map<String, User> otherUsers = loadChatPartners(personalChats, memberId);
 
         List<PersonalChatResponseDto> responseList = new ArrayList<>();
-
         for (PersonalChat chat : personalChats) {
-            String otherUserId = chat.getMember1Id().equals(memberId) ? chat.getMember2Id() : chat.getMember1Id();
-
-            if (otherUserId == null) {
-                System.err.println("Error: Other User ID is null for chat: " + chat);
+            User otherUser = otherUsers.get(otherMemberId(chat, memberId));
+            if (otherUser == null) {
+                logger.warn("Chat partner not found for chat: {}", chat.getId());
                 continue;
             }
+            List<Message> recent = messageBucketService.getRecentMessages(chat.getId(), recentMessages);
+            PersonalChatResponseDto dto = new PersonalChatResponseDto(otherUser.getGithubUsername(), recent, otherUser.getId());
+            dto.setNextCursor(cursorOf(recent));
+            dto.setHasMore(dto.getNextCursor() != null);
+            responseList.add(dto);
+        }
+        return responseList;
+    }
 
-            System.out.println("Fetching user details for ID: " + otherUserId);
+    /**
+     * Inbox view: one entry per conversation with the partner's display data, the
+     * last message and the member's unread count, newest conversation first. Costs
+     * one chat query and one batched user query, independent of history length.
+     */
+    public List<InboxEntryDto> getInbox(String memberId) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("member1Id").is(memberId), Criteria.where("member2Id").is(memberId)))
+                .with(Sort.by(Sort.Direction.DESC, "lastMessageAt"));
+        query.fields().exclude("secretKey", "secretKey1");
+        List<PersonalChat> chats = mongoTemplate.find(query, PersonalChat.class);
+        Map<String, User> otherUsers = loadChatPartners(chats, memberId);
 
-            Optional<User> optionalUser = userRepository.findById(otherUserId);
-            if (optionalUser.isEmpty()) {
-                System.err.println("Error: User not found for ID: " + otherUserId);
+        List<InboxEntryDto> inbox = new ArrayList<>(chats.size());
+        for (PersonalChat chat : chats) {
+            String otherUserId = otherMemberId(chat, memberId);
+            User otherUser = otherUsers.get(otherUserId);
+            if (otherUser == null) {
                 continue;
             }
+            InboxEntryDto entry = new InboxEntryDto();
+            entry.setChatId(chat.getId());
+            entry.setOtherUserId(otherUserId);
+            entry.setOtherUsername(otherUser.getUsername());
+            entry.setOtherGithubUsername(otherUser.getGithubUsername());
+            entry.setOtherDisplayName(otherUser.getDisplayName());
+            entry.setOtherAvatarUrl(otherUser.getGithubAvatarUrl());
+            if (chat.getLastMessage() != null) {
+                chat.getLastMessage().setSeq(chat.getMessageCount());
+            }
+            entry.setLastMessage(chat.getLastMessage());
+            entry.setLastMessageAt(chat.getLastMessageAt());
+            Long unread = chat.getUnreadCounts() != null ? chat.getUnreadCounts().get(memberId) : null;
+            entry.setUnreadCount(unread != null ? unread : 0L);
+            inbox.add(entry);
+        }
+        return inbox;
+    }
 
-            User otherUser = optionalUser.get();
-            System.out.println("Found user: " + otherUser);
-            responseList.add(new PersonalChatResponseDto(
-                    otherUser.getGithubUsername(),
-                    chat.getMessages(),
-                    otherUser.getId()
-            ));
+    /**
+     * Clears the member's unread counter for the conversation.
+     *
+     * @return false if the chat does not exist
+     */
+    public boolean markRead(String memberId, String otherMemberId) {
+        Optional<String> chatId = resolveChatId(memberId, otherMemberId);
+        if (chatId.isEmpty()) {
+            return false;
         }
-        System.out.println("Final Response List: " + responseList);
-        return responseList;
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(chatId.get())),
+                new Update().set("unreadCounts." + memberId, 0L), PersonalChat.class);
+        return true;
+    }
+
+    private static String otherMemberId(PersonalChat chat, String memberId) {
+        return memberId.equals(chat.getMember1Id()) ? chat.getMember2Id() : chat.getMember1Id();
+    }
+
+    // One $in query with only the display fields instead of a findById per chat
+    private Map<String, User> loadChatPartners(List<PersonalChat> chats, String memberId) {
+        Set<String> ids = new HashSet<>();
+        for (PersonalChat chat : chats) {
+            String otherUserId = otherMemberId(chat, memberId);
+            if (otherUserId != null) {
+                ids.add(otherUserId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("username", "displayName", "githubUsername", "githubAvatarUrl");
+        return mongoTemplate.find(query, User.class).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
     public List<Message> getAllMessagesOfAPersonalChat(String member1,String member2){
         System.out.println("getAllMessagesOfAPersonalChat called with member1: " + member1 + ", member2: " + member2);
-        Optional<PersonalChat> personalChat = personalChatRepository.findByMemberIds(member1,member2);
+        Optional<PersonalChat> personalChat = findChat(member1,member2);
         if (personalChat.isPresent()) {
-            List<Message> messages = personalChat.get().getMessages();
+            List<Message> messages = messageBucketService.getAllMessages(personalChat.get().getId());
             System.out.println("Found chat with " + (messages != null ? messages.size() : 0) + " messages");
             return messages != null ? messages : Collections.emptyList();
         }
         System.out.println("No chat found for members: " + member1 + " and " + member2);
         return Collections.emptyList();
     }
-}
 
+    /**
+     * Newest page first: call without a cursor to open the chat, then pass
+     * {@code nextCursor} as {@code before} to load older messages on scroll.
+     */
+    public Optional<ChatHistoryPageDto> getChatHistory(String member1Id, String member2Id, Long before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxHistoryPageSize));
+        return findChat(member1Id, member2Id).map(chat -> {
+            List<Message> page = messageBucketService.getMessagesBefore(chat.getId(), before, pageSize);
+            Long cursor = cursorOf(page);
+            return new ChatHistoryPageDto(page, cursor, cursor != null);
+        });
+    }
+
+    /**
+     * Oldest page first: messages after {@code after}, e.g. the {@code nextAfterSeq}
+     * of a truncated sync frame. Pass {@code nextCursor} as {@code after} again to
+     * continue until {@code hasMore} is false.
+     */
+    public Optional<ChatHistoryPageDto> getChatHistoryAfter(String member1Id, String member2Id, long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxHistoryPageSize));
+        return findChat(member1Id, member2Id).map(chat -> {
+            // One extra message tells whether another page follows
+            List<Message> page = messageBucketService.getMessagesAfter(chat.getId(), after, pageSize + 1);
+            boolean hasMore = page.size() > pageSize;
+            if (hasMore) {
+                page = new ArrayList<>(page.subList(0, pageSize));
+            }
+            Long cursor = hasMore ? page.get(page.size() - 1).getSeq() : null;
+            return new ChatHistoryPageDto(page, cursor, hasMore);
+        });
+    }
+
+    // Seq of the oldest message of a page, if anything older exists
+    private static Long cursorOf(List<Message> page) {
+        Long oldestSeq = page.isEmpty() ? null : page.get(0).getSeq();
+        return oldestSeq != null && oldestSeq > 1 ? oldestSeq : null;
+    }
+}
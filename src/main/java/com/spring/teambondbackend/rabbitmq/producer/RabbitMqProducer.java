@@ -6,13 +6,20 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Locale;
+
 @Service
 @RequiredArgsConstructor
 public class RabbitMqProducer {
 
+    private static final String PENDING_PREFIX = "framework-analysis:pending:";
+
     private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private static final Logger logger = LoggerFactory.getLogger(RabbitMqProducer.class);
 
     @org.springframework.beans.factory.annotation.Value("${rabbitmq.exchange}")
@@ -21,8 +28,55 @@ public class RabbitMqProducer {
     @org.springframework.beans.factory.annotation.Value("${rabbitmq.routingKey}")
     private String routingKey;
 
+    // Upper bound on how long a lost or dead-lettered job blocks new requests
+    @org.springframework.beans.factory.annotation.Value("${framework-analysis.pending-ttl-minutes:30}")
+    private long pendingTtlMinutes;
+
     public void sendUserToQueue(GithubScoreRequest user) {
-        logger.info("Sending user to queue", user);
+        logger.info("Sending user to queue: {}", user.getUsername());
         rabbitTemplate.convertAndSend(exchangeName, routingKey, user);
     }
+
+    /**
+     * Enqueues a framework analysis unless one is already pending for the same
+     * user. The pending marker is cleared by the consumer once the job succeeds.
+     *
+     * @return true if a new job was enqueued or one is already pending
+     */
+    public boolean requestFrameworkAnalysis(GithubScoreRequest request) {
+        String key = pendingKey(request.getUsername());
+        Boolean claimed;
+        try {
+            claimed = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, "1", Duration.ofMinutes(pendingTtlMinutes));
+        } catch (Exception e) {
+            // Without Redis we cannot deduplicate; enqueueing twice is harmless, just wasteful
+            logger.warn("Framework analysis dedup unavailable for {}: {}", request.getUsername(), e.getMessage());
+            claimed = true;
+        }
+        if (!Boolean.TRUE.equals(claimed)) {
+            logger.info("Framework analysis already pending for: {}", request.getUsername());
+            return true;
+        }
+        try {
+            sendUserToQueue(request);
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to enqueue framework analysis for {}: {}", request.getUsername(), e.getMessage());
+            clearPending(request.getUsername());
+            return false;
+        }
+    }
+
+    public void clearPending(String username) {
+        try {
+            stringRedisTemplate.delete(pendingKey(username));
+        } catch (Exception e) {
+            logger.warn("Could not clear pending framework analysis for {}: {}", username, e.getMessage());
+        }
+    }
+
+    private static String pendingKey(String username) {
+        return PENDING_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,11 +1,77 @@
 package com.spring.teambondbackend.recommendation.configs;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+
+/**
+ * Outbound HTTP clients. Every client gets its own connection pool, so a slow host can
+ * only exhaust its own connections. Settings are read from {@code http.client.<name>.*}
+ * and fall back to the shared {@code http.client.*} values.
+ */
 @Configuration
+@RequiredArgsConstructor
 public class ConfigFile {
+
+        private final Environment environment;
+        private final MeterRegistry meterRegistry;
+
+        // Everything without a dedicated client (e.g. the chatbot service)
         @Bean
+        @Primary
         public RestTemplate restTemplate() {
-            return new RestTemplate();
+            return pooledRestTemplate("default");
+        }
+
+        // api.github.com: profile fetches and the framework crawl
+        @Bean
+        public RestTemplate githubRestTemplate() {
+            return pooledRestTemplate("github");
+        }
+
+        // generativelanguage.googleapis.com: long generations, hence the longer read timeout
+        @Bean
+        public RestTemplate geminiRestTemplate() {
+            return pooledRestTemplate("gemini");
+        }
+
+        private RestTemplate pooledRestTemplate(String client) {
+            MeteredConnectionManager connectionManager = new MeteredConnectionManager(client, meterRegistry);
+            connectionManager.setMaxTotal(setting(client, "max-total", 100));
+            connectionManager.setDefaultMaxPerRoute(setting(client, "max-per-route", 20));
+            connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(setting(client, "connect-timeout-ms", 5000)))
+                    .setSocketTimeout(Timeout.ofMilliseconds(setting(client, "read-timeout-ms", 60000)))
+                    .setTimeToLive(TimeValue.ofSeconds(setting(client, "time-to-live-seconds", 300)))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                    .build());
+
+            // Content compression is on by default: requests advertise gzip/deflate and
+            // compressed responses are decoded before they reach the message converters
+            CloseableHttpClient httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofMilliseconds(setting(client, "pool-acquire-timeout-ms", 5000)))
+                            .build())
+                    .evictIdleConnections(TimeValue.ofSeconds(setting(client, "idle-timeout-seconds", 30)))
+                    .evictExpiredConnections()
+                    .build();
+
+            return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        }
+
+        private int setting(String client, String key, int defaultValue) {
+            Integer shared = environment.getProperty("http.client." + key, Integer.class, defaultValue);
+            return environment.getProperty("http.client." + client + "." + key, Integer.class, shared);
         }
 }
@@ -0,0 +1,101 @@
+package com.spring.teambondbackend.recommendation.configs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Connection pool of one outbound client, with Micrometer meters tagged by client name:
+ * <ul>
+ *     <li>{@code http.client.pool.acquire} - time spent waiting for a connection, tagged
+ *     with {@code outcome} (success, timeout, failure)</li>
+ *     <li>{@code http.client.pool.lease} - how long a connection was held before it went
+ *     back to the pool</li>
+ *     <li>{@code http.client.pool.leased|available|pending} - current pool state</li>
+ * </ul>
+ * A rising acquire time with a flat lease time means the pool is too small; a rising
+ * lease time means the remote host got slow.
+ */
+class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Map<ConnectionEndpoint, Long> leasedAt = new ConcurrentHashMap<>();
+    private final Timer acquireSuccess;
+    private final Timer acquireTimeout;
+    private final Timer acquireFailure;
+    private final Timer leaseTimer;
+
+    MeteredConnectionManager(String client, MeterRegistry meterRegistry) {
+        this.acquireSuccess = acquireTimer(meterRegistry, client, "success");
+        this.acquireTimeout = acquireTimer(meterRegistry, client, "timeout");
+        this.acquireFailure = acquireTimer(meterRegistry, client, "failure");
+        this.leaseTimer = Timer.builder("http.client.pool.lease")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.leased", this, m -> m.getTotalStats().getLeased())
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.available", this, m -> m.getTotalStats().getAvailable())
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.pending", this, m -> m.getTotalStats().getPending())
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String client, String outcome) {
+        return Timer.builder("http.client.pool.acquire")
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    ConnectionEndpoint endpoint = delegate.get(timeout);
+                    long now = System.nanoTime();
+                    acquireSuccess.record(now - start, TimeUnit.NANOSECONDS);
+                    leasedAt.put(endpoint, now);
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    acquireTimeout.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                } catch (InterruptedException | ExecutionException | RuntimeException e) {
+                    acquireFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+        Long start = leasedAt.remove(endpoint);
+        if (start != null) {
+            leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        super.release(endpoint, state, keepAlive);
+    }
+}
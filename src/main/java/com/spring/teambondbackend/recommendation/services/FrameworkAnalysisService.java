@@ -1,4 +1,5 @@
 package com.spring.teambondbackend.recommendation.services;
+import com.spring.teambondbackend.rabbitmq.producer.RabbitMqProducer;
 import com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest;
 import com.spring.teambondbackend.recommendation.dtos.RepositoryInfo;
 import com.spring.teambondbackend.recommendation.models.UserFrameworkStats;
@@ -23,6 +24,7 @@ public class FrameworkAnalysisService {
     private final GithubApiService githubApiService;
     private final UserFrameworkStatsRepository userFrameworkStatsRepository;
     private final UserRepository userRepository;
+    private final RabbitMqProducer rabbitMqProducer;
     private static final Logger logger = LoggerFactory.getLogger(FrameworkAnalysisService.class);
 
     public void analyseUserFrameworkStats(GithubScoreRequest request) {
@@ -109,6 +111,8 @@ public class FrameworkAnalysisService {
         try{
             logger.info("Processing message for user: {}", request.getUsername());
             this.analyseUserFrameworkStats(request);
+            // Allow the next refresh to be queued; failed jobs keep the marker until it expires
+            rabbitMqProducer.clearPending(request.getUsername());
         }catch (Exception e){
             logger.error("Error processing message for user {}: {}", request.getUsername(), e.getMessage());
             throw e; // Rethrow to trigger retry mechanism Thus necessary for retry
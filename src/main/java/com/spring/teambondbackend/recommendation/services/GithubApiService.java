@@ -7,6 +7,8 @@ import com.spring.teambondbackend.recommendation.utils.Mappings;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -17,8 +19,12 @@ import java.util.concurrent.*;
 @Service
 @RequiredArgsConstructor
 public class GithubApiService {
+    @Qualifier("githubRestTemplate")
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    // Shared, bounded executor (virtual threads in the "virtual" profile) instead of a pool per call
+    @Qualifier("githubCrawlExecutor")
+    private final AsyncTaskExecutor githubCrawlExecutor;
     private static final String GITHUB_GRAPHQL_URL = "https://api.github.com/graphql";
     private static Logger logger = LoggerFactory.getLogger(GithubApiService.class);
 
@@ -122,15 +128,13 @@ public class GithubApiService {
 
     /**
      * Processes multiple repositories in parallel to detect frameworks.
-     * Uses a thread pool with a capped number of threads for framework detection.
+     * Runs on the shared GitHub crawl executor.
      * @param repositories List of repositories to process
      * @param owner The repository owner
      * @param accessToken GitHub access token for authentication
      * @return Map of repository to its detected frameworks
      */
     public Map<RepositoryInfo, List<String>> getFrameworksForRepositories(List<RepositoryInfo> repositories, String owner, String accessToken) {
-        int threadPoolSize = Math.min(repositories.size(), 10); // Cap at 10 threads for framework detection
-        ExecutorService frameworkExecutor = Executors.newFixedThreadPool(threadPoolSize);
         Map<RepositoryInfo, List<String>> repoToFrameworks = new ConcurrentHashMap<>();
         List<Future<Void>> frameworkFutures = new ArrayList<>();
 
@@ -146,37 +150,18 @@ public class GithubApiService {
                 }
                 return null;
             };
-            frameworkFutures.add(frameworkExecutor.submit(task));
+            frameworkFutures.add(githubCrawlExecutor.submit(task));
         }
 
         // This waiting logic is serializable
         // Once main thread gets the output from the first thread then only does it go for the second one
-        for (Future<Void> future : frameworkFutures) {
-            try {
-                future.get(30, TimeUnit.SECONDS); // Timeout after 30 seconds per task
-            } catch (TimeoutException e) {
-                System.err.println("Task timed out: " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Error retrieving result: " + e.getMessage());
-            }
-        }
-
-        frameworkExecutor.shutdown(); // This is just a advisory method .
-        try {
-            if (!frameworkExecutor.awaitTermination(60, TimeUnit.SECONDS)) { // If this returns false then shut down immediately meaning if the task not completed in the given time then just simply shutdown
-                frameworkExecutor.shutdownNow();  // This shuts down the frameworkExecutor service then and there
-            }
-        } catch (InterruptedException e) {
-//          // If error then also shut down the frameworkExecutor service then and there .
-            frameworkExecutor.shutdownNow();
-//            Thread.currentThread().interrupt();
-        }
+        awaitAll(frameworkFutures);
         return repoToFrameworks;
     }
 
     /**
      * Counts the number of files associated with each framework across repositories.
-     * Processes commits in parallel with a thread pool sized based on the number of commits.
+     * Processes commits in parallel on the shared GitHub crawl executor.
      * @param repoToFrameworks Map of repositories to their detected frameworks
      * @param owner The repository owner
      * @param accessToken GitHub access token for authentication
@@ -193,8 +178,6 @@ public class GithubApiService {
                 continue; // Skip repositories with no frameworks or commits
             }
 
-            int commitThreadPoolSize = Math.min(repo.getCommitShas().size(), 100); // Cap at 100 threads for commit processing
-            ExecutorService commitExecutor = Executors.newFixedThreadPool(commitThreadPoolSize);
             List<Future<Void>> commitFutures = new ArrayList<>();
 
             HttpHeaders headers = new HttpHeaders();
@@ -220,7 +203,7 @@ public class GithubApiService {
                                 List<String> extensions = Mappings.FRAMEWORK_TO_FILE_EXTENSIONS.getOrDefault(framework, Collections.emptyList());
                                 for (String ext : extensions) {
                                     if (filename.endsWith(ext)) {
-                                        globalFrameworkToFiles.computeIfAbsent(framework, k -> new HashSet<>()).add(repoFilePath);
+                                        globalFrameworkToFiles.computeIfAbsent(framework, k -> ConcurrentHashMap.newKeySet()).add(repoFilePath);
                                         break;
                                     }
                                 }
@@ -231,28 +214,10 @@ public class GithubApiService {
                     }
                     return null;
                 };
-                commitFutures.add(commitExecutor.submit(task));
-            }
-
-            for (Future<Void> future : commitFutures) {
-                try {
-                    future.get(30, TimeUnit.SECONDS); // Timeout after 30 seconds per task
-                } catch (TimeoutException e) {
-                    System.err.println("Task timed out: " + e.getMessage());
-                } catch (Exception e) {
-                    System.err.println("Error retrieving result: " + e.getMessage());
-                }
+                commitFutures.add(githubCrawlExecutor.submit(task));
             }
 
-            commitExecutor.shutdown();
-            try {
-                if (!commitExecutor.awaitTermination(60, TimeUnit.SECONDS)) {
-                    commitExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                commitExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+            awaitAll(commitFutures);
         }
 
         Map<String, Integer> frameworkToFileCounts = new HashMap<>();
@@ -331,4 +296,22 @@ public class GithubApiService {
         System.out.println("Detected frameworks: " + detectedFrameworks);
         return detectedFrameworks;
     }
+
+    // Waits up to 30 seconds per task; tasks still running after that are cancelled
+    private static void awaitAll(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                System.err.println("Task timed out: " + e.getMessage());
+                future.cancel(true);
+            } catch (InterruptedException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Error retrieving result: " + e.getMessage());
+            }
+        }
+    }
 }
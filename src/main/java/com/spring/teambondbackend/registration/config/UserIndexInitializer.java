@@ -0,0 +1,46 @@
+package com.spring.teambondbackend.registration.config;
+
+import com.spring.teambondbackend.registration.model.User;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the unique username index that registration and profile updates rely on
+ * instead of an {@code existsByUsername} pre-query. Partial, so OAuth2 accounts that
+ * have not picked a username yet do not collide on a missing value.
+ * <p>
+ * Runs while the context is refreshed, i.e. before the web server accepts requests,
+ * and fails startup if the index cannot be created: without it, duplicate usernames
+ * would be accepted silently.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void createIndexes() {
+        try {
+            mongoTemplate.indexOps(User.class).ensureIndex(new Index()
+                    .on("username", Sort.Direction.ASC)
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("username").exists(true)))
+                    .named("username_unique"));
+        } catch (Exception e) {
+            // Usually existing duplicates, which have to be resolved before the app can start
+            logger.error("Could not create the unique username index: {}", e.getMessage());
+            throw new IllegalStateException("Unique username index is missing", e);
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package com.spring.teambondbackend.registration.controller;
 
-import com.spring.teambondbackend.OAuth2.util.EncryptionUtil;
+import com.spring.teambondbackend.OAuth2.util.EncryptionService;
 import com.spring.teambondbackend.rabbitmq.producer.RabbitMqProducer;
 import com.spring.teambondbackend.OAuth2.util.JwtUtil;
 import com.spring.teambondbackend.recommendation.controllers.FrameworkController;
 import com.spring.teambondbackend.recommendation.dtos.GithubScoreRequest;
+import com.spring.teambondbackend.registration.dto.PublicUserProfile;
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.repository.UserRepository;
 import com.spring.teambondbackend.registration.service.CodeChefScraperService;
@@ -12,12 +13,13 @@ import com.spring.teambondbackend.registration.dto.CodeChefStatsDto;
 import com.spring.teambondbackend.registration.service.CodeforcesScraperService;
 import com.spring.teambondbackend.registration.dto.CodeforcesStatsDto;
 import com.spring.teambondbackend.registration.service.UserService;
-import com.spring.teambondbackend.analysis.service.GithubAnalysisService;
+import com.spring.teambondbackend.analysis.service.GithubAnalysisCoordinator;
 import com.spring.teambondbackend.analysis.dto.DeveloperEvaluation;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spring.teambondbackend.registration.exception.InvalidCredentialsException;
 import com.spring.teambondbackend.subscription.model.PaymentOrder;
 import com.spring.teambondbackend.subscription.repository.PaymentOrderRepository;
+import com.spring.teambondbackend.throttling.RateLimited;
 import com.razorpay.Order;
 import com.razorpay.RazorpayException;
 import com.razorpay.RazorpayClient;
@@ -31,11 +33,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.*;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -56,9 +62,8 @@ import org.springframework.web.bind.annotation.RequestBody; // For @RequestBody
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
-    @Value("${JWT_SECRET_KEY}")
-    private String secretKey;
     private final UserService userService;
+    private final EncryptionService encryptionService;
     private final FrameworkController frameworkController;
     private final PaymentOrderRepository paymentOrderRepository;
     private final JwtUtil jwtUtil;
@@ -67,7 +72,9 @@ public class UserController {
     private final UserRepository userRepository;
     private final CodeChefScraperService codeChefScraperService;
     private final CodeforcesScraperService codeforcesScraperService;
-    private final GithubAnalysisService githubAnalysisService;
+    private final GithubAnalysisCoordinator githubAnalysisCoordinator;
+    @Qualifier("applicationTaskExecutor")
+    private final AsyncTaskExecutor applicationTaskExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${razorpay.webhook.secret}")
@@ -79,6 +86,10 @@ public class UserController {
     @Value("${razorpay.key_secret}")
     private String key_secret;
 
+    // /all/stream outlives spring.mvc.async.request-timeout; 0 or less means no limit
+    @Value("${user.export.timeout-ms:1800000}")
+    private long exportTimeoutMillis;
+
     @GetMapping("/me")
     public ResponseEntity<?> getUsersDetailsFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
@@ -151,7 +162,7 @@ public class UserController {
                 }
                 // Save the public key from request
                 // System.out.println(user.getRsaPublicKey());
-                String encryptPublickey = EncryptionUtil.encrypt(user.getRsaPublicKey(), secretKey);
+                String encryptPublickey = encryptionService.encrypt(user.getRsaPublicKey());
                 u.setRsaPublicKey(encryptPublickey);
                 u.setEncryptedPrivateKey(user.getEncryptedPrivateKey());
                 u.setPrivateKeyIv(user.getPrivateKeyIv());
@@ -166,12 +177,10 @@ public class UserController {
                 if (savedUser.getGeminiAnalysis() == null || savedUser.getGeminiAnalysis().trim().isEmpty()) {
                     try {
                         System.out.println("Triggering Gemini AI Analysis for: " + savedUser.getGithubUsername());
-                        DeveloperEvaluation analysis = githubAnalysisService
-                                .analyzeDeveloper(savedUser.getGithubUsername());
-                        // Store as JSON string
-                        String analysisJson = objectMapper.writeValueAsString(analysis);
-                        savedUser.setGeminiAnalysis(analysisJson);
-                        userRepository.save(savedUser);
+                        // The coordinator coalesces with concurrent profile views and stores the result
+                        DeveloperEvaluation analysis = githubAnalysisCoordinator
+                                .analyze(savedUser.getGithubUsername()).getEvaluation();
+                        savedUser.setGeminiAnalysis(objectMapper.writeValueAsString(analysis));
                         System.out.println(
                                 "Gemini AI Analysis completed and stored for: " + savedUser.getGithubUsername());
                     } catch (Exception e) {
@@ -205,7 +214,7 @@ public class UserController {
             githubScoreRequest.setUsername(user.getUsername());
             githubScoreRequest.setEmail(user.getEmail());
             // Decrypt token when needed
-            String decryptedToken = EncryptionUtil.decrypt(u.getGithubAccessToken(), secretKey);
+            String decryptedToken = encryptionService.decrypt(u.getGithubAccessToken());
             githubScoreRequest.setAccessToken(decryptedToken);
             System.out.println("decrepted github access token" + decryptedToken);
             // rabbitMqProducer.sendUserToQueue(githubScoreRequest);
@@ -251,9 +260,8 @@ public class UserController {
     @GetMapping("/{username}")
     public ResponseEntity<?> getUserDetails(@PathVariable java.lang.String username) {
         try {
-            User user = userService.getUserByUsername(username);
-            // System.out.println(user);
-            return ResponseEntity.ok(user);
+            // Cached projection: everything this endpoint returned before except private key material
+            return ResponseEntity.ok(userService.getPublicProfile(username));
         } catch (Exception e) {
             return ResponseEntity.status(404).body("User not found.");
         }
@@ -265,9 +273,22 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    // Same users as /all, one public profile per line, streamed from a Mongo cursor
+    @GetMapping(value = "/all/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(HttpServletRequest request) {
+        // The MVC-wide async timeout would cut a large export off mid-body behind a 200;
+        // the timeout applies once this method returns and streaming starts
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest()
+                .setTimeout(exportTimeoutMillis > 0 ? exportTimeoutMillis : -1L);
+        StreamingResponseBody body = userService::writePublicProfiles;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PutMapping("/{username}")
     public ResponseEntity<?> updateUserByUsername(@RequestBody User user, @PathVariable java.lang.String username) {
-        User user1 = userService.updateUser(user, username);
+        PublicUserProfile user1 = userService.updateUser(user, username);
         if (user1 == null) {
             return ResponseEntity.badRequest().body("User not found.");
         }
@@ -300,11 +321,7 @@ public class UserController {
             paymentOrder.setStatus("created");
             paymentOrder.setUserId(data.get("userId").toString());
 
-            Optional<User> user = userRepository.findById(data.get("userId").toString());
-            if (user.isPresent()) {
-                user.get().setStatus("created");
-                userRepository.save(user.get());
-            }
+            userService.updatePaymentStatus(data.get("userId").toString(), "created");
 
             paymentOrderRepository.save(paymentOrder);
 
@@ -325,11 +342,8 @@ public class UserController {
         PaymentOrder paymentOrder = paymentOrderRepository.findByOrderId(data.get("order_id").toString());
         paymentOrder.setPaymentId(data.get("payment_id").toString());
         paymentOrder.setStatus(data.get("status").toString());
-        Optional<User> user = userRepository.findById(data.get("userId").toString());
-        if (user.isPresent()) {
-            User updatedUser = user.get();
-            updatedUser.setStatus("paid");
-            userRepository.save(updatedUser);
+        User updatedUser = userService.updatePaymentStatus(data.get("userId").toString(), "paid");
+        if (updatedUser != null) {
 
             // Generate new JWT token with updated status
             String newToken = jwtUtil.generateToken(
@@ -355,7 +369,7 @@ public class UserController {
 
     @GetMapping("/get_status/{username}")
     public ResponseEntity<?> getUserStatus(@PathVariable String username) {
-        User user = userService.getUserByUsername(username);
+        PublicUserProfile user = userService.getPublicProfile(username);
         return ResponseEntity.ok(Map.of("status", user.getStatus()));
     }
 
@@ -369,8 +383,8 @@ public class UserController {
                 return ResponseEntity.status(400).body("Invalid signature");
             }
 
-            // Process webhook asynchronously in a new thread
-            new Thread(() -> processWebhookPayload(payload)).start();
+            // Process webhook asynchronously on the shared task executor
+            applicationTaskExecutor.execute(() -> processWebhookPayload(payload));
 
             // Return 200 OK immediately
             return ResponseEntity.ok("Webhook received");
@@ -401,11 +415,7 @@ public class UserController {
                 paymentOrder.setStatus("paid");
                 paymentOrderRepository.save(paymentOrder);
 
-                Optional<User> user = userRepository.findById(paymentOrder.getUserId());
-                user.ifPresent(u -> {
-                    u.setStatus("paid");
-                    userRepository.save(u);
-                });
+                userService.updatePaymentStatus(paymentOrder.getUserId(), "paid");
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -433,9 +443,9 @@ public class UserController {
     @GetMapping("/public_key/{username}")
     public ResponseEntity<?> getPublicKey(@PathVariable String username) {
         try {
-            User user = userService.getUserByUsername(username);
-            if (user != null && user.getRsaPublicKey() != null) {
-                String decrypyPublickey = EncryptionUtil.decrypt(user.getRsaPublicKey(), secretKey);
+            PublicUserProfile user = userService.getPublicProfile(username);
+            if (user.getRsaPublicKey() != null) {
+                String decrypyPublickey = encryptionService.decrypt(user.getRsaPublicKey());
                 return ResponseEntity.ok(decrypyPublickey);
             } else {
                 return ResponseEntity.status(404).body("User or public key not found");
@@ -455,10 +465,8 @@ public class UserController {
         }
 
         try {
-            User user = userService.getUserByUsername(username);
-            String encryptPublickey = EncryptionUtil.encrypt(publicKey, secretKey);
-            user.setRsaPublicKey(encryptPublickey);
-            userRepository.save(user);
+            String encryptPublickey = encryptionService.encrypt(publicKey);
+            userService.updatePublicKey(username, encryptPublickey);
             return ResponseEntity.ok("Public key updated successfully");
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error updating public key: " + e.getMessage());
@@ -513,6 +521,7 @@ public class UserController {
         return ResponseEntity.ok("ping");
     }
 
+    @RateLimited("scrape")
     @GetMapping("/codechef/{username}")
     public ResponseEntity<?> getCodeChefStats(@PathVariable String username) {
         try {
@@ -522,6 +531,7 @@ public class UserController {
         }
     }
 
+    @RateLimited("scrape")
     @GetMapping("/codeforces/{username}")
     public ResponseEntity<?> getCodeforcesStats(@PathVariable String username) {
         try {
@@ -534,14 +544,11 @@ public class UserController {
     @PostMapping("/{username}/upgrade-premium")
     public ResponseEntity<?> upgradeToPremium(@PathVariable String username, HttpServletResponse response) {
         try {
-            User user = userService.getUserByUsername(username);
+            User user = userService.updatePaymentStatus(userService.getPublicProfile(username).getId(), "paid");
             if (user == null) {
                 return ResponseEntity.status(404).body("User not found");
             }
 
-            user.setStatus("paid");
-            userRepository.save(user);
-
             // Generate new JWT token with updated status
             String newToken = jwtUtil.generateToken(
                     user.getId(),
@@ -0,0 +1,39 @@
+package com.spring.teambondbackend.registration.dto;
+
+import lombok.Data;
+
+// What GET /api/users/{username} exposes of a user document, read directly from the
+// users collection: profile fields plus email, payment status, the (encrypted) RSA
+// public key and the Gemini analysis. Never private key material or tokens.
+@Data
+public class PublicUserProfile {
+    private String id;
+    private String username;
+    private String displayName;
+    private String githubUsername;
+    private String githubAvatarUrl;
+    private String leetcodeUsername;
+    private String codechefUsername;
+    private String codeforcesUsername;
+    private String bio;
+    private String linkedinurl;
+    private String twitterusername;
+    private String instagramusername;
+    private String portfolioUrl;
+    private String resumeUrl;
+    private String gifUrl;
+    private String coverPhotoUrl;
+    private String emoji;
+    private boolean isProfileComplete;
+    private String email;
+    private String status;
+    private String rsaPublicKey;
+    private String geminiAnalysis;
+
+    public static final String[] FIELDS = {
+            "username", "displayName", "githubUsername", "githubAvatarUrl", "leetcodeUsername",
+            "codechefUsername", "codeforcesUsername", "bio", "linkedinurl", "twitterusername",
+            "instagramusername", "portfolioUrl", "resumeUrl", "gifUrl", "coverPhotoUrl", "emoji",
+            "isProfileComplete", "email", "status", "rsaPublicKey", "geminiAnalysis"
+    };
+}
@@ -0,0 +1,131 @@
+package com.spring.teambondbackend.registration.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.teambondbackend.registration.dto.PublicUserProfile;
+import com.spring.teambondbackend.registration.model.User;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through Redis cache of {@link PublicUserProfile}s, looked up by username or
+ * display name. Only that projection is stored: no private
+ * key material or tokens.
+ * <p>
+ * An entry is keyed by the string that was looked up, so a user can be cached under
+ * both their username and their display name. Found profiles live for
+ * {@code user.profile-cache.ttl-seconds}; lookups that found nobody are remembered
+ * separately for the much shorter {@code negative-ttl-seconds}, so probing for
+ * unknown names cannot flood Mongo. Writers call {@link #evict} with every name the
+ * user had before and after the change; both entry kinds are dropped.
+ * <p>
+ * An eviction also leaves a marker for {@code eviction-guard-seconds}. A reader that
+ * loaded the user before the eviction checks for it after writing its entry and
+ * removes the entry again, so a stale profile cannot outlive the write for the full TTL.
+ * <p>
+ * Redis errors are logged and treated as a miss: the cache never fails a lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserProfileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+    private static final String PROFILE_PREFIX = "user:profile:found:";
+    private static final String MISSING_PREFIX = "user:profile:missing:";
+    private static final String EVICTED_PREFIX = "user:profile:evicted:";
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${user.profile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.profile-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${user.profile-cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    // Longer than a profile load takes, see the class comment
+    @Value("${user.profile-cache.eviction-guard-seconds:30}")
+    private long evictionGuardSeconds;
+
+    /**
+     * @return the cached profile for {@code name}, otherwise whatever {@code loader}
+     *         finds (which is then cached, including "not found")
+     */
+    public Optional<PublicUserProfile> get(String name, Supplier<Optional<PublicUserProfile>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        try {
+            // Both entry kinds in one round trip
+            List<Object> cached = redisTemplate.opsForValue().multiGet(List.<Object>of(PROFILE_PREFIX + name, MISSING_PREFIX + name));
+            if (cached != null && cached.get(1) != null) {
+                return Optional.empty();
+            }
+            if (cached != null && cached.get(0) != null) {
+                // The template's serializer is untyped, so values come back as maps
+                return Optional.of(objectMapper.convertValue(cached.get(0), PublicUserProfile.class));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read cached profile {}: {}", name, e.getMessage());
+        }
+
+        Optional<PublicUserProfile> loaded = loader.get();
+        try {
+            String key = loaded.isPresent() ? PROFILE_PREFIX + name : MISSING_PREFIX + name;
+            redisTemplate.opsForValue().set(key, loaded.isPresent() ? loaded.get() : "1",
+                    Duration.ofSeconds(loaded.isPresent() ? ttlSeconds : negativeTtlSeconds));
+            // Evicted while loading: what was just written may predate the change
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(EVICTED_PREFIX + name))) {
+                redisTemplate.delete(key);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not cache profile {}: {}", name, e.getMessage());
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops cached profiles and "not found" markers for the given names. Null names
+     * are ignored, so callers can pass old and new values without checking them.
+     */
+    public void evict(String... names) {
+        if (!enabled) {
+            return;
+        }
+        List<Object> keys = new ArrayList<>();
+        try {
+            for (String name : names) {
+                if (name != null) {
+                    // Marker first: a reader that writes after the delete below still sees it
+                    redisTemplate.opsForValue().set(EVICTED_PREFIX + name, "1", Duration.ofSeconds(evictionGuardSeconds));
+                    keys.add(PROFILE_PREFIX + name);
+                    keys.add(MISSING_PREFIX + name);
+                }
+            }
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+        } catch (Exception e) {
+            // The entries expire on their own; until then reads may be stale
+            logger.warn("Could not evict cached profiles {}: {}", keys, e.getMessage());
+        }
+    }
+
+    public void evict(User user) {
+        if (user != null) {
+            evict(user.getUsername(), user.getDisplayName());
+        }
+    }
+}
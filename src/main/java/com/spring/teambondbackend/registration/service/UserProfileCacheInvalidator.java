@@ -0,0 +1,24 @@
+package com.spring.teambondbackend.registration.service;
+
+import com.spring.teambondbackend.registration.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the cached profile whenever a {@link User} is saved through a repository or
+ * {@code MongoTemplate.save}, e.g. registration and OAuth2 logins. Writes that
+ * bypass entity saves (field updates, renames) evict explicitly.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserProfileCacheInvalidator extends AbstractMongoEventListener<User> {
+
+    private final UserProfileCache userProfileCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        userProfileCache.evict(event.getSource());
+    }
+}
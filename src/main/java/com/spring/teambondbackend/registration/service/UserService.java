@@ -1,18 +1,32 @@
 package com.spring.teambondbackend.registration.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.teambondbackend.registration.dto.PublicUserProfile;
 import com.spring.teambondbackend.registration.model.User;
 import com.spring.teambondbackend.registration.repository.UserRepository;
 import com.spring.teambondbackend.registration.exception.UserAlreadyExistsException;
 import com.spring.teambondbackend.registration.exception.InvalidCredentialsException;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -20,15 +34,27 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Register new user
+    @Value("${user.export.batch-size:500}")
+    private int exportBatchSize;
+
+    @PostConstruct
+    void validateExportSettings() {
+        if (exportBatchSize < 1) {
+            throw new IllegalStateException("user.export.batch-size must be at least 1, was " + exportBatchSize);
+        }
+    }
+
+    // Register new user. Username uniqueness is enforced by the unique index
     public User registerUser(User user) {
-        if (userRepository.existsByUsername(user.getUsername())) {
+        try {
+            return userRepository.save(user);
+        } catch (DuplicateKeyException e) {
             throw new UserAlreadyExistsException("Username already exists: " + user.getUsername());
         }
-
-        User user1 = userRepository.save(user);
-        return user1;
     }
 
     // Authenticate user (login)
@@ -56,72 +82,118 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
     }
 
-    public User updateUser(User user, java.lang.String username) {
-        Optional<User> userOptional = userRepository.findByUsername(username);
-        if (userOptional.isPresent()) {
-            User userToUpdate = userOptional.get();
+    // Public profile by username or display name, served from the profile cache
+    public PublicUserProfile getPublicProfile(String username) {
+        return userProfileCache.get(username, () -> findPublicProfile("username", username)
+                        .or(() -> findPublicProfile("displayName", username)))
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
 
-            if (user.getUsername() != null) {
-                if (userRepository.existsByUsername(user.getUsername())) {
-                    throw new UserAlreadyExistsException("Username already exists: " + user.getUsername());
-                }
-                userToUpdate.setUsername(user.getUsername());
-            }
+    private Optional<PublicUserProfile> findPublicProfile(String field, String value) {
+        Query query = new Query(Criteria.where(field).is(value));
+        query.fields().include(PublicUserProfile.FIELDS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, PublicUserProfile.class,
+                mongoTemplate.getCollectionName(User.class)));
+    }
 
-            if (user.getDisplayName() != null) {
-                userToUpdate.setDisplayName(user.getDisplayName());
-            }
-            if (user.getEmail() != null) {
-                userToUpdate.setEmail(user.getEmail());
-            }
-            if (user.getPassword() != null) {
-                userToUpdate.setPassword(user.getPassword());
-            }
-            if (user.getBio() != null) {
-                userToUpdate.setBio(user.getBio());
-            }
-            if (user.getGithubUsername() != null) {
-                userToUpdate.setGithubUsername(user.getGithubUsername());
-            }
-            if (user.getLeetcodeUsername() != null) {
-                userToUpdate.setLeetcodeUsername(user.getLeetcodeUsername());
-            }
-            if (user.getLinkedinurl() != null) {
-                userToUpdate.setLinkedinurl(user.getLinkedinurl());
-            }
-            if (user.getCodechefUsername() != null) {
-                userToUpdate.setCodechefUsername(user.getCodechefUsername());
-            }
-            if (user.getInstagramusername() != null) {
-                userToUpdate.setInstagramusername(user.getInstagramusername());
-            }
-            if (user.getTwitterusername() != null) {
-                userToUpdate.setTwitterusername(user.getTwitterusername());
-            }
-            if (user.getResumeUrl() != null) {
-                userToUpdate.setResumeUrl(user.getResumeUrl());
-            }
-            if (user.getPortfolioUrl() != null) {
-                userToUpdate.setPortfolioUrl(user.getPortfolioUrl());
-            }
-            if (user.getGifUrl() != null) {
-                userToUpdate.setGifUrl(user.getGifUrl());
-            }
-            if (user.getCoverPhotoUrl() != null) {
-                userToUpdate.setCoverPhotoUrl(user.getCoverPhotoUrl());
-            }
-            if (user.getEmoji() != null) {
-                userToUpdate.setEmoji(user.getEmoji());
-            }
-            return userRepository.save(userToUpdate);
+    // Partial update: only the non-null request fields are $set, so concurrent writers of
+    // other fields (e.g. the Gemini analysis) are not overwritten. Returns the public profile
+    public PublicUserProfile updateUser(User user, java.lang.String username) {
+        Update update = new Update();
+        if (user.getUsername() != null) {
+            update.set("username", user.getUsername());
+        }
+        if (user.getDisplayName() != null) {
+            update.set("displayName", user.getDisplayName());
+        }
+        if (user.getEmail() != null) {
+            update.set("email", user.getEmail());
+        }
+        if (user.getBio() != null) {
+            update.set("bio", user.getBio());
+        }
+        if (user.getGithubUsername() != null) {
+            update.set("githubUsername", user.getGithubUsername());
+        }
+        if (user.getLeetcodeUsername() != null) {
+            update.set("leetcodeUsername", user.getLeetcodeUsername());
+        }
+        if (user.getLinkedinurl() != null) {
+            update.set("linkedinurl", user.getLinkedinurl());
+        }
+        if (user.getCodechefUsername() != null) {
+            update.set("codechefUsername", user.getCodechefUsername());
         }
-        return null;
+        if (user.getInstagramusername() != null) {
+            update.set("instagramusername", user.getInstagramusername());
+        }
+        if (user.getTwitterusername() != null) {
+            update.set("twitterusername", user.getTwitterusername());
+        }
+        if (user.getResumeUrl() != null) {
+            update.set("resumeUrl", user.getResumeUrl());
+        }
+        if (user.getPortfolioUrl() != null) {
+            update.set("portfolioUrl", user.getPortfolioUrl());
+        }
+        if (user.getGifUrl() != null) {
+            update.set("gifUrl", user.getGifUrl());
+        }
+        if (user.getCoverPhotoUrl() != null) {
+            update.set("coverPhotoUrl", user.getCoverPhotoUrl());
+        }
+        if (user.getEmoji() != null) {
+            update.set("emoji", user.getEmoji());
+        }
+        // password is @Transient and never stored, so it is not part of the update
+        if (update.getUpdateObject().isEmpty()) {
+            return findPublicProfile("username", username).orElse(null);
+        }
+
+        // Only the old names come back, so renames can evict them
+        Query query = new Query(Criteria.where("username").is(username));
+        query.fields().include("username", "displayName");
+        User previous;
+        try {
+            previous = mongoTemplate.findAndModify(query, update, User.class);
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException("Username already exists: " + user.getUsername());
+        }
+        if (previous == null) {
+            return null;
+        }
+        userProfileCache.evict(previous.getUsername(), previous.getDisplayName(),
+                user.getUsername(), user.getDisplayName());
+        return findPublicProfile("id", previous.getId()).orElse(null);
     }
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
+    /**
+     * Writes every user's public profile as newline-delimited JSON. Walks a Mongo cursor
+     * that fetches {@code user.export.batch-size} documents at a time and flushes after
+     * each batch, so memory stays flat regardless of the user count.
+     */
+    public void writePublicProfiles(OutputStream out) throws IOException {
+        Query query = new Query().cursorBatchSize(exportBatchSize);
+        query.fields().include(PublicUserProfile.FIELDS);
+        try (Stream<PublicUserProfile> profiles = mongoTemplate.stream(query, PublicUserProfile.class,
+                mongoTemplate.getCollectionName(User.class))) {
+            Iterator<PublicUserProfile> iterator = profiles.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++written % exportBatchSize == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
+    }
+
     public List<java.lang.String> getAllUsersId() {
         return userRepository.findAll().stream().map(User::getId).collect(Collectors.toList());
     }
@@ -142,19 +214,58 @@ public class UserService {
 
     // Method to update encrypted private key (Password based)
     public void updateEncryptedPrivateKey(String username, String encryptedKey, String iv) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setEncryptedPrivateKey(encryptedKey);
-        user.setPrivateKeyIv(iv);
-        userRepository.save(user);
+        updateFields(username, new Update()
+                .set("encryptedPrivateKey", encryptedKey)
+                .set("privateKeyIv", iv));
     }
 
     // Method to update encrypted private key (Recovery Code based)
     public void updateRecoveryPrivateKey(String username, String encryptedRecoveryKey, String iv) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setEncryptedRecoveryPrivateKey(encryptedRecoveryKey);
-        user.setRecoveryKeyIv(iv);
-        userRepository.save(user);
+        updateFields(username, new Update()
+                .set("encryptedRecoveryPrivateKey", encryptedRecoveryKey)
+                .set("recoveryKeyIv", iv));
+    }
+
+    // Stores the already encrypted RSA public key; matches by username, then display name
+    public void updatePublicKey(String username, String encryptedPublicKey) {
+        Update update = new Update().set("rsaPublicKey", encryptedPublicKey);
+        User user = setProfileField("username", username, update);
+        if (user == null) {
+            user = setProfileField("displayName", username, update);
+        }
+        if (user == null) {
+            throw new RuntimeException("User not found: " + username);
+        }
+    }
+
+    // Payment status change; returns the user's identity fields (e.g. for a new JWT), or null
+    public User updatePaymentStatus(String userId, String status) {
+        Query query = new Query(Criteria.where("id").is(userId));
+        query.fields().include("username", "displayName", "email", "status");
+        User user = mongoTemplate.findAndModify(query, new Update().set("status", status),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        userProfileCache.evict(user);
+        return user;
+    }
+
+    // $set of a field in the cached profile: reads back only the names to evict
+    private User setProfileField(String field, String value, Update update) {
+        Query query = new Query(Criteria.where(field).is(value));
+        query.fields().include("username", "displayName");
+        User user = mongoTemplate.findAndModify(query, update, User.class);
+        userProfileCache.evict(user);
+        return user;
+    }
+
+    private void updateFields(String username, Update update) {
+        if (!setFields("username", username, update)) {
+            throw new RuntimeException("User not found");
+        }
+    }
+
+    // Single-document $set of fields outside the cached profile (private key material), so nothing to evict
+    private boolean setFields(String field, String value, Update update) {
+        return mongoTemplate.updateFirst(new Query(Criteria.where(field).is(value)), update, User.class)
+                .getMatchedCount() > 0;
     }
 }
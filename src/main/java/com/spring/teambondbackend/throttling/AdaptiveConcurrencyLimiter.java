@@ -0,0 +1,78 @@
+package com.spring.teambondbackend.throttling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency (AIMD).
+ * <p>
+ * A request that finishes within {@code latencyThresholdNanos} while the group is
+ * using at least half of its limit raises the limit by one; a slower request cuts
+ * it by {@code backoffRatio}. Only requests that started after the previous cut
+ * can cut again, so one burst of slow calls shrinks the limit once rather than
+ * once per call. Admission itself is a lock-free check against the current limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+            double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * @return false if the group is at its limit; otherwise the caller must call
+     *         {@link #release(long, long, int)} when the request finishes
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos      {@link System#nanoTime()} when the request was admitted
+     * @param endNanos        {@link System#nanoTime()} when it finished
+     * @param inFlightAtStart {@link #getInFlight()} right after admission
+     */
+    public void release(long startNanos, long endNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        onSample(startNanos, endNanos - startNanos, inFlightAtStart);
+    }
+
+    private synchronized void onSample(long startNanos, long latencyNanos, int inFlightAtStart) {
+        if (latencyNanos > latencyThresholdNanos) {
+            if (startNanos > lastDecreaseNanos) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                lastDecreaseNanos = startNanos + latencyNanos;
+            }
+        } else if (inFlightAtStart * 2 >= limit) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
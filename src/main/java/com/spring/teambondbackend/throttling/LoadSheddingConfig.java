@@ -0,0 +1,62 @@
+package com.spring.teambondbackend.throttling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the endpoint groups of the {@link LoadSheddingFilter} from
+ * {@code load-shedding.group.<name>.*} and registers the filter right after the
+ * security chain, so rejected requests still carry CORS headers.
+ */
+@Configuration
+@ConditionalOnProperty(name = "load-shedding.enabled", havingValue = "true", matchIfMissing = true)
+public class LoadSheddingConfig {
+
+    @Value("${load-shedding.groups:default}")
+    private List<String> groupNames;
+
+    @Value("${load-shedding.global-limit:150}")
+    private int globalLimit;
+
+    @Value("${load-shedding.normal-share:0.85}")
+    private double normalShare;
+
+    @Value("${load-shedding.sheddable-share:0.5}")
+    private double sheddableShare;
+
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(Environment environment,
+            MeterRegistry meterRegistry) {
+        List<LoadSheddingFilter.Group> groups = new ArrayList<>();
+        for (String name : groupNames) {
+            String prefix = "load-shedding.group." + name + ".";
+            String[] patterns = environment.getProperty(prefix + "patterns", String[].class, new String[0]);
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, 20),
+                    environment.getProperty(prefix + "min-limit", Integer.class, 1),
+                    environment.getProperty(prefix + "max-limit", Integer.class, 100),
+                    Duration.ofMillis(environment.getProperty(prefix + "latency-threshold-ms", Long.class, 2000L))
+                            .toNanos(),
+                    environment.getProperty(prefix + "backoff-ratio", Double.class, 0.9));
+            groups.add(new LoadSheddingFilter.Group(name,
+                    LoadSheddingFilter.Priority.valueOf(environment.getProperty(prefix + "priority", "NORMAL")),
+                    List.of(patterns), limiter));
+        }
+
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(
+                new LoadSheddingFilter(groups, globalLimit, normalShare, sheddableShare, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
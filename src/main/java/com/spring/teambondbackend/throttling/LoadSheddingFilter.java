@@ -0,0 +1,173 @@
+package com.spring.teambondbackend.throttling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rejects requests with 503 before they reach a controller when their endpoint
+ * group is at its adaptive concurrency limit, or when the server as a whole is
+ * busy enough that their priority class no longer gets in.
+ * <p>
+ * Every request holds a slot in the global pool. A priority class may only take
+ * a slot while the pool is below its share ({@code SHEDDABLE} gives up first,
+ * {@code CRITICAL} can use all of it), so slow AI calls are shed before cheap
+ * reads run out of threads. Requests that go async keep their slots until the
+ * async processing completes.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    public enum Priority {
+        CRITICAL, NORMAL, SHEDDABLE
+    }
+
+    /**
+     * An endpoint group: requests matching {@code patterns} share one limiter.
+     * A group without patterns matches every request.
+     */
+    public record Group(String name, Priority priority, List<String> patterns, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    private final List<Group> groups;
+    private final int globalLimit;
+    private final double normalShare;
+    private final double sheddableShare;
+    private final AtomicInteger globalInFlight = new AtomicInteger();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final MeterRegistry meterRegistry;
+
+    public LoadSheddingFilter(List<Group> groups, int globalLimit, double normalShare, double sheddableShare,
+            MeterRegistry meterRegistry) {
+        this.groups = groups;
+        this.globalLimit = globalLimit;
+        this.normalShare = normalShare;
+        this.sheddableShare = sheddableShare;
+        this.meterRegistry = meterRegistry;
+        for (Group group : groups) {
+            Gauge.builder("load_shedding.limit", group.limiter(), AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+            Gauge.builder("load_shedding.in_flight", group.limiter(), AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupOf(request.getRequestURI());
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!acquireGlobal(group.priority())) {
+            reject(response, group);
+            return;
+        }
+        if (!group.limiter().tryAcquire()) {
+            globalInFlight.decrementAndGet();
+            reject(response, group);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int inFlightAtStart = group.limiter().getInFlight();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                group.limiter().release(start, System.nanoTime(), inFlightAtStart);
+                globalInFlight.decrementAndGet();
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private boolean acquireGlobal(Priority priority) {
+        double share = switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case SHEDDABLE -> sheddableShare;
+        };
+        int allowed = (int) Math.ceil(globalLimit * share);
+        while (true) {
+            int current = globalInFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (globalInFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Group groupOf(String path) {
+        for (Group group : groups) {
+            if (group.patterns().isEmpty()) {
+                return group;
+            }
+            for (String pattern : group.patterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, Group group) throws IOException {
+        Counter.builder("load_shedding.rejected").tag("group", group.name()).register(meterRegistry).increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Server busy, please retry\"}");
+    }
+
+    private record ReleasingAsyncListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the next round if the request goes async again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
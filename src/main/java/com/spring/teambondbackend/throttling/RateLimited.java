@@ -0,0 +1,21 @@
+package com.spring.teambondbackend.throttling;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often one caller may invoke the annotated endpoint. Endpoints that
+ * name the same policy share a bucket per caller; the policy's limits come from
+ * {@code rate-limit.<policy>.capacity} and {@code rate-limit.<policy>.refill-per-minute}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    /**
+     * Policy name, e.g. {@code gemini} for endpoints that call Gemini.
+     */
+    String value();
+}
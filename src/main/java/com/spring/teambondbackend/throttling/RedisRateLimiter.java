@@ -0,0 +1,68 @@
+package com.spring.teambondbackend.throttling;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Token-bucket rate limiter shared by all nodes. Each (policy, caller) pair has a
+ * bucket in Redis that is refilled and debited by one Lua script, so concurrent
+ * requests on different nodes cannot overdraw it.
+ * <p>
+ * If Redis is unavailable the request is allowed: a limiter outage should not
+ * take the endpoints down with it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+    private static final String KEY_PREFIX = "rate-limit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        TOKEN_BUCKET_SCRIPT.setLocation(new ClassPathResource("scripts/token_bucket.lua"));
+        TOKEN_BUCKET_SCRIPT.setResultType(List.class);
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Environment environment;
+
+    /**
+     * @param allowed          whether the request may proceed
+     * @param retryAfterMillis when a rejected caller will have a token again
+     */
+    public record Decision(boolean allowed, long retryAfterMillis) {
+    }
+
+    public Decision tryAcquire(String policy, String caller) {
+        int capacity = environment.getProperty("rate-limit." + policy + ".capacity", Integer.class, 10);
+        double refillPerMinute = environment.getProperty("rate-limit." + policy + ".refill-per-minute",
+                Double.class, 10.0);
+        if (capacity <= 0 || refillPerMinute <= 0) {
+            return new Decision(true, 0);
+        }
+        try {
+            List<?> result = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + policy + ":" + caller),
+                    String.valueOf(capacity), String.valueOf(refillPerMinute / 60_000d), "1");
+            if (result == null || result.size() < 2) {
+                return new Decision(true, 0);
+            }
+            return new Decision(((Number) result.get(0)).longValue() == 1, ((Number) result.get(1)).longValue());
+        } catch (Exception e) {
+            logger.warn("Rate limiter unavailable, allowing {} request from {}: {}", policy, caller, e.getMessage());
+            return new Decision(true, 0);
+        }
+    }
+}
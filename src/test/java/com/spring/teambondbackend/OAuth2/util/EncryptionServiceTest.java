@@ -0,0 +1,59 @@
+package com.spring.teambondbackend.OAuth2.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptionServiceTest {
+
+    private static final String SECRET = "test-secret-key-for-encryption-service";
+
+    private final EncryptionService gcm = new EncryptionService(SECRET, "gcm");
+    private final EncryptionService cbc = new EncryptionService(SECRET, "cbc");
+
+    @Test
+    void gcmRoundTripUsesPrefixAndFreshIv() {
+        String first = gcm.encrypt("gho_token");
+        String second = gcm.encrypt("gho_token");
+
+        assertTrue(first.startsWith(EncryptionService.GCM_PREFIX));
+        assertNotEquals(first, second);
+        assertEquals("gho_token", gcm.decrypt(first));
+        assertEquals("gho_token", cbc.decrypt(second));
+    }
+
+    @Test
+    void readsValuesWrittenInTheLegacyFormat() throws Exception {
+        // IV + ciphertext, Base64, exactly as the previous EncryptionUtil wrote it
+        byte[] iv = new byte[16];
+        iv[3] = 7;
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, EncryptionService.deriveKey(SECRET), new IvParameterSpec(iv));
+        byte[] encrypted = cipher.doFinal("-----BEGIN PUBLIC KEY-----".getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+
+        String legacy = Base64.getEncoder().encodeToString(combined);
+
+        assertEquals("-----BEGIN PUBLIC KEY-----", gcm.decrypt(legacy));
+        assertEquals("-----BEGIN PUBLIC KEY-----", gcm.decrypt(cbc.encrypt("-----BEGIN PUBLIC KEY-----")));
+    }
+
+    @Test
+    void rejectsTamperedGcmValues() {
+        byte[] combined = Base64.getDecoder().decode(gcm.encrypt("gho_token").substring(3));
+        combined[combined.length - 1] ^= 1;
+        String tampered = EncryptionService.GCM_PREFIX + Base64.getEncoder().encodeToString(combined);
+
+        assertThrows(RuntimeException.class, () -> gcm.decrypt(tampered));
+    }
+}
@@ -0,0 +1,116 @@
+package com.spring.teambondbackend.config;
+
+import com.spring.teambondbackend.OAuth2.filter.JwtTokenCache;
+import com.spring.teambondbackend.OAuth2.service.CustomOAuth2UserService;
+import com.spring.teambondbackend.OAuth2.service.OAuth2LoginService;
+import com.spring.teambondbackend.OAuth2.util.EncryptionService;
+import com.spring.teambondbackend.OAuth2.util.JwtUtil;
+import com.spring.teambondbackend.analysis.controller.GithubAnalysisController;
+import com.spring.teambondbackend.analysis.service.GithubAnalysisCoordinator;
+import com.spring.teambondbackend.rabbitmq.producer.RabbitMqProducer;
+import com.spring.teambondbackend.registration.model.User;
+import com.spring.teambondbackend.registration.repository.UserRepository;
+import com.spring.teambondbackend.throttling.RedisRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints returning a {@code CompletableFuture} are authorized again when MVC
+ * dispatches the result; a JWT-authenticated caller must still be authenticated then.
+ */
+@WebMvcTest(controllers = GithubAnalysisController.class, properties = {
+        "JWT_SECRET_KEY=test-secret-key-that-is-at-least-32-bytes-long",
+        "frontend.url=http://localhost:3000",
+        "spring.security.oauth2.client.registration.github.client-id=test",
+        "spring.security.oauth2.client.registration.github.client-secret=test",
+        "spring.security.oauth2.client.registration.github.redirect-uri=http://localhost/login/oauth2/code/github",
+        "executor.ai-request.timeout-ms=5000"
+})
+@Import({SecurityConfig.class, CustomCorsConfiguration.class, JwtUtil.class, JwtTokenCache.class,
+        AiRequestRunner.class, AsyncDispatchSecurityTest.TestBeans.class})
+class AsyncDispatchSecurityTest {
+
+    @TestConfiguration
+    static class TestBeans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        AsyncTaskExecutor aiRequestExecutor() {
+            return new SimpleAsyncTaskExecutor("ai-test-");
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private GithubAnalysisCoordinator githubAnalysisCoordinator;
+    @MockitoBean
+    private EncryptionService encryptionService;
+    @MockitoBean
+    private RabbitMqProducer rabbitMqProducer;
+    @MockitoBean
+    private UserRepository userRepository;
+    @MockitoBean
+    private RedisRateLimiter redisRateLimiter;
+    @MockitoBean
+    private CustomOAuth2UserService customOAuth2UserService;
+    @MockitoBean
+    private OAuth2LoginService oAuth2LoginService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisRateLimiter.tryAcquire(anyString(), anyString()))
+                .thenReturn(new RedisRateLimiter.Decision(true, 0));
+        User user = new User();
+        user.setGithubUsername("octocat");
+        user.setGeminiAnalysis("{\"developer_type\":\"Builder\"}");
+        when(userRepository.findByGithubUsername("octocat")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void jwtCallerStaysAuthenticatedOnTheAsyncDispatch() throws Exception {
+        String token = JwtUtil.generateToken("user-1", "alice", "alice@example.com", "paid");
+
+        MvcResult started = mockMvc.perform(get("/api/analysis/github/octocat")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.developer_type").value("Builder"));
+    }
+
+    @Test
+    void anonymousCallerIsRejectedBeforeTheWorkStarts() throws Exception {
+        mockMvc.perform(get("/api/analysis/github/octocat"))
+                .andExpect(status().isForbidden())
+                .andExpect(request().asyncNotStarted());
+    }
+}
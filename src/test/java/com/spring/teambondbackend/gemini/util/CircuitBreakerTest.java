@@ -0,0 +1,123 @@
+package com.spring.teambondbackend.gemini.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+
+    private CircuitBreaker newBreaker() {
+        // window 10, min 4 calls, 50% errors, p95 >= 1000ms, open for 5s, 2 probes
+        return new CircuitBreaker(10, 4, 50, 1000, 5000, 2, now::get);
+    }
+
+    @Test
+    void opensWhenFailureRateCrossesThreshold() {
+        CircuitBreaker breaker = newBreaker();
+        breaker.onSuccess(breaker.acquirePermission(), 10);
+        breaker.onSuccess(breaker.acquirePermission(), 10);
+        breaker.onError(breaker.acquirePermission(), 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onError(breaker.acquirePermission(), 10);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.acquirePermission());
+    }
+
+    @Test
+    void opensWhenP95LatencyIsTooHigh() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(breaker.acquirePermission(), 1500);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreakerOnSuccess() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.acquirePermission(), 10);
+        }
+        assertFalse(breaker.isCallPermitted());
+
+        now.addAndGet(5000);
+        CircuitBreaker.Permit first = breaker.acquirePermission();
+        CircuitBreaker.Permit second = breaker.acquirePermission();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Only two probes are allowed while half-open
+        assertNull(breaker.acquirePermission());
+
+        breaker.onSuccess(first, 20);
+        breaker.onSuccess(second, 20);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotNull(breaker.acquirePermission());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.acquirePermission(), 10);
+        }
+        now.addAndGet(5000);
+        CircuitBreaker.Permit probe = breaker.acquirePermission();
+        assertNotNull(probe);
+        breaker.onError(probe, 10);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.acquirePermission());
+    }
+
+    @Test
+    void callsAdmittedWhileClosedDoNotCountAsProbes() {
+        CircuitBreaker breaker = newBreaker();
+        CircuitBreaker.Permit slowCall = breaker.acquirePermission();
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.acquirePermission(), 10);
+        }
+        now.addAndGet(5000);
+        CircuitBreaker.Permit probe = breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // The old call finishing now neither fails nor completes the probing
+        breaker.onError(slowCall, 10);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(probe, 20);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(breaker.acquirePermission(), 20);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void ignoredResultsAreNotRecordedButFreeTheProbeSlot() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onIgnored(breaker.acquirePermission());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.acquirePermission(), 10);
+        }
+        now.addAndGet(5000);
+        CircuitBreaker.Permit first = breaker.acquirePermission();
+        assertNotNull(breaker.acquirePermission());
+        assertFalse(breaker.isCallPermitted());
+
+        breaker.onIgnored(first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+    }
+}
@@ -0,0 +1,83 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.spring.teambondbackend.personalchat.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application instances wired through an in-memory fan-out, standing in for
+ * Redis pub/sub: a frame sent on one node must reach subscribers on the other.
+ */
+class ChatBroadcastServiceTest {
+
+    private static final String TOPIC = "/api/v1/topic/personal_chat/a/b";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<ChatBroadcastService> cluster = new CopyOnWriteArrayList<>();
+    private final List<org.springframework.messaging.Message<?>> nodeAFrames = new ArrayList<>();
+    private final List<org.springframework.messaging.Message<?>> nodeBFrames = new ArrayList<>();
+    private ChatBroadcastService nodeA;
+    private ChatBroadcastService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        // Like Redis pub/sub, every published envelope reaches every subscribed node, including the sender
+        ChatFanout bus = envelope -> cluster.forEach(node -> node.onRemoteMessage(envelope));
+        nodeA = new ChatBroadcastService(localBroker(nodeAFrames), objectMapper, Optional.of(bus),
+                new SimpleMeterRegistry());
+        nodeB = new ChatBroadcastService(localBroker(nodeBFrames), objectMapper, Optional.of(bus),
+                new SimpleMeterRegistry());
+        cluster.add(nodeA);
+        cluster.add(nodeB);
+    }
+
+    private static SimpMessagingTemplate localBroker(List<org.springframework.messaging.Message<?>> frames) {
+        return new SimpMessagingTemplate((message, timeout) -> frames.add(message));
+    }
+
+    @Test
+    void frameSentOnOneNodeIsDeliveredOnTheOther() {
+        nodeA.broadcast(TOPIC, new Message("hello", "alice"));
+
+        assertEquals(1, nodeBFrames.size());
+        org.springframework.messaging.Message<?> frame = nodeBFrames.get(0);
+        assertEquals(TOPIC, SimpMessageHeaderAccessor.getDestination(frame.getHeaders()));
+        JsonNode payload = (JsonNode) frame.getPayload();
+        assertEquals("hello", payload.get("content").asText());
+        assertEquals("alice", payload.get("sender").asText());
+    }
+
+    @Test
+    void senderDeliversLocallyExactlyOnce() {
+        nodeA.broadcast(TOPIC, new Message("hello", "alice"));
+
+        assertEquals(1, nodeAFrames.size());
+        assertTrue(nodeAFrames.get(0).getPayload() instanceof Message);
+    }
+
+    @Test
+    void singleNodeModeOnlyDeliversLocally() {
+        List<org.springframework.messaging.Message<?>> frames = new ArrayList<>();
+        ChatBroadcastService standalone = new ChatBroadcastService(localBroker(frames), objectMapper,
+                Optional.empty(), new SimpleMeterRegistry());
+
+        standalone.broadcast(TOPIC, new Message("hello", "alice"));
+
+        assertEquals(1, frames.size());
+        assertEquals(0, nodeBFrames.size());
+    }
+}
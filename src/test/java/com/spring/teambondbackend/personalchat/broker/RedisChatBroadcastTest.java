@@ -0,0 +1,117 @@
+package com.spring.teambondbackend.personalchat.broker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.spring.teambondbackend.personalchat.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application instances wired exactly like {@code chat.broker.mode=redis}, sharing
+ * a real Redis: one publish must reach the subscribers of both nodes, once each.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisChatBroadcastTest {
+
+    private static final String TOPIC = "/api/v1/topic/personal_chat/a/b";
+    private static final String CHANNEL = "chat:broadcast:test";
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private final List<RedisMessageListenerContainer> listenerContainers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        listenerContainers.forEach(RedisMessageListenerContainer::stop);
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    @Test
+    void framePublishedOnOneNodeIsDeliveredOnBoth() throws Exception {
+        List<org.springframework.messaging.Message<?>> nodeAFrames = new CopyOnWriteArrayList<>();
+        List<org.springframework.messaging.Message<?>> nodeBFrames = new CopyOnWriteArrayList<>();
+        ChatBroadcastService nodeA = startNode(nodeAFrames);
+        startNode(nodeBFrames);
+
+        nodeA.broadcast(TOPIC, new Message("hello", "alice"));
+
+        awaitFrames(nodeBFrames, 1);
+        org.springframework.messaging.Message<?> frame = nodeBFrames.get(0);
+        assertEquals(TOPIC, SimpMessageHeaderAccessor.getDestination(frame.getHeaders()));
+        JsonNode payload = (JsonNode) frame.getPayload();
+        assertEquals("hello", payload.get("content").asText());
+        assertEquals("alice", payload.get("sender").asText());
+
+        // The sender's own envelope comes back over Redis too and must be skipped
+        Thread.sleep(200);
+        assertEquals(1, nodeAFrames.size());
+        assertTrue(nodeAFrames.get(0).getPayload() instanceof Message);
+        assertEquals(1, nodeBFrames.size());
+    }
+
+    private ChatBroadcastService startNode(List<org.springframework.messaging.Message<?>> frames) throws Exception {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        connectionFactories.add(connectionFactory);
+
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        RedisChatFanout fanout = new RedisChatFanout(stringRedisTemplate);
+        ReflectionTestUtils.setField(fanout, "channel", CHANNEL);
+        ChatBroadcastService node = new ChatBroadcastService(
+                new SimpMessagingTemplate((message, timeout) -> frames.add(message)),
+                objectMapper, Optional.of(fanout), new SimpleMeterRegistry());
+
+        ChatBrokerConfig config = new ChatBrokerConfig();
+        ReflectionTestUtils.setField(config, "channel", CHANNEL);
+        RedisMessageListenerContainer listenerContainer = config.chatBroadcastListenerContainer(connectionFactory, node);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        listenerContainers.add(listenerContainer);
+        awaitSubscription(listenerContainer);
+        return node;
+    }
+
+    private static void awaitSubscription(RedisMessageListenerContainer listenerContainer) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!listenerContainer.isListening() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(listenerContainer.isListening(), "Redis subscription not established");
+    }
+
+    private static void awaitFrames(List<?> frames, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (frames.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, frames.size());
+    }
+}
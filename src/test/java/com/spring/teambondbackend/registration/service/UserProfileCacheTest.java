@@ -0,0 +1,115 @@
+package com.spring.teambondbackend.registration.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.teambondbackend.registration.dto.PublicUserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTest {
+
+    // Redis as seen through the untyped JSON serializer: values come back as maps
+    private final Map<Object, Object> redis = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserProfileCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<Object, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<Object, Object> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        doAnswer(inv -> redis.put(inv.getArgument(0), objectMapper.convertValue(inv.getArgument(1), Object.class)))
+                .when(values).set(any(), any(), any(Duration.class));
+        when(values.multiGet(anyCollection())).thenAnswer(inv -> ((Collection<Object>) inv.getArgument(0)).stream()
+                .map(redis::get).collect(Collectors.toList()));
+        when(redisTemplate.hasKey(any())).thenAnswer(inv -> redis.containsKey(inv.getArgument(0)));
+        when(redisTemplate.delete(any(Object.class))).thenAnswer(inv -> redis.remove(inv.getArgument(0)) != null);
+        when(redisTemplate.delete(anyCollection())).thenAnswer(inv -> ((Collection<Object>) inv.getArgument(0)).stream()
+                .filter(key -> redis.remove(key) != null).count());
+
+        cache = new UserProfileCache(redisTemplate);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "evictionGuardSeconds", 30L);
+    }
+
+    @Test
+    void secondLookupIsServedWithoutTheLoader() {
+        PublicUserProfile profile = new PublicUserProfile();
+        profile.setUsername("alice");
+        profile.setDisplayName("Alice");
+        profile.setProfileComplete(true);
+        AtomicInteger mongoQueries = new AtomicInteger();
+
+        cache.get("alice", () -> {
+            mongoQueries.incrementAndGet();
+            return Optional.of(profile);
+        });
+        Optional<PublicUserProfile> cached = cache.get("alice", () -> {
+            mongoQueries.incrementAndGet();
+            return Optional.of(profile);
+        });
+
+        assertEquals(1, mongoQueries.get());
+        assertTrue(cached.isPresent());
+        assertEquals("Alice", cached.get().getDisplayName());
+        assertTrue(cached.get().isProfileComplete());
+    }
+
+    @Test
+    void unknownNamesAreCachedAsMisses() {
+        AtomicInteger mongoQueries = new AtomicInteger();
+
+        cache.get("nobody", () -> {
+            mongoQueries.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<PublicUserProfile> second = cache.get("nobody", () -> {
+            mongoQueries.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertEquals(1, mongoQueries.get());
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void profileLoadedBeforeAnEvictionIsNotCached() {
+        PublicUserProfile stale = new PublicUserProfile();
+        stale.setUsername("alice");
+        AtomicInteger mongoQueries = new AtomicInteger();
+
+        // A writer updates and evicts alice while this reader is still loading the old document
+        cache.get("alice", () -> {
+            mongoQueries.incrementAndGet();
+            cache.evict("alice");
+            return Optional.of(stale);
+        });
+        cache.get("alice", () -> {
+            mongoQueries.incrementAndGet();
+            return Optional.of(stale);
+        });
+
+        assertEquals(2, mongoQueries.get());
+    }
+}
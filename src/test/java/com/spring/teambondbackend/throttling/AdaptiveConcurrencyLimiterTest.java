@@ -0,0 +1,62 @@
+package com.spring.teambondbackend.throttling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void rejectsOnceTheLimitIsReached() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, THRESHOLD, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(0, FAST, 2);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsOnFastCallsWhileTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, THRESHOLD, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(0, FAST, 1);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.release(i, i + FAST, 3);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void slowBurstCutsTheLimitOnceAndNotBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 3, 10, THRESHOLD, 0.5);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+
+        // Four calls of the same burst, all started before the first cut
+        for (int i = 0; i < 4; i++) {
+            limiter.release(i, i + SLOW, 4);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        // A call admitted after the cut may cut again, down to the minimum
+        limiter.tryAcquire();
+        limiter.release(1_000_000_000L, 1_000_000_000L + SLOW, 1);
+        assertEquals(3, limiter.getLimit());
+    }
+}